@@ -37,7 +37,7 @@ public class Day01 {
 	 *   lists, separated by spaces
 	 * @return The sum of distances between sorted list elements
 	 */
-	private static long part1( final List<String> input ) {
+	public static long part1( final List<String> input ) {
 		// parse input into two lists
 		final List<Integer> l1 = new ArrayList<>( input.size( ) );
 		final List<Integer> l2 = new ArrayList<>( input.size( ) );
@@ -67,7 +67,7 @@ public class Day01 {
 	 *   lists, separated by spaces
 	 * @return 
 	 */
-	private static long part2( final List<String> input ) {
+	public static long part2( final List<String> input ) {
 		// parse input into two lists
 		final List<Integer> l1 = new ArrayList<>( input.size( ) );
 		final List<Integer> l2 = new ArrayList<>( input.size( ) );		
@@ -33,7 +33,7 @@ public class Day02 {
 	 * @param input The list of report strings
 	 * @return The count of reports that are safe according to the safety rules
 	 */
-	private static long part1( final List<String> input ) {
+	public static long part1( final List<String> input ) {
 		return input.stream( ).filter( r -> RNRReport.fromString( r ).isSafe( ) ).count( );
 	}
 
@@ -45,7 +45,7 @@ public class Day02 {
 	 * @return  The count of reports that are safe, accounting for a single
 	 *   unsafe value
 	 */
-	private static long part2( final List<String> input ) {
+	public static long part2( final List<String> input ) {
 		int count = 0;
 		for( final String s : input ) {
 			// check if the report is already safe without removing a value
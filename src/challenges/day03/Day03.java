@@ -36,7 +36,7 @@ public class Day03 {
 	 * @param input The string of commands that has been corrupted
 	 * @return The sum of all valid multiply operation results in there
 	 */
-	private static long part1( final String input ) {
+	public static long part1( final String input ) {
 		final Matcher m = Pattern.compile( "mul\\((\\d{1,3}),(\\d{1,3})\\)" ).matcher( input );
 		long sum = 0;
 		while( m.find( ) ) sum += Integer.parseInt( m.group( 1 ) ) * Integer.parseInt( m.group( 2 ) );
@@ -51,7 +51,7 @@ public class Day03 {
 	 * @return The sum of all valid multiply operation results in there, now only
 	 *   
 	 */
-	private static long part2( final String input ) {
+	public static long part2( final String input ) {
 		long sum = 0;
 		
 		// run part1 only on those subsequences of the input that are not
@@ -2,8 +2,7 @@ package challenges.day04;
 
 import java.util.List;
 
-import aocutil.geometry.Coord2D;
-import aocutil.grid.CoordGrid;
+import challenges.grid.CharGrid;
 
 /**
  * Holds a simple, character-based crossword puzzle
@@ -12,14 +11,14 @@ import aocutil.grid.CoordGrid;
  */
 public class CrossWord {
 	/** The grid that represents the puzzle */
-	protected final CoordGrid<Character> puzzle;
+	protected final CharGrid puzzle;
 
 	/**
 	 * Creates a new crossword puzzle from the grid 
 	 * 
 	 * @param input The character grid of the puzzle
 	 */
-	protected CrossWord( final CoordGrid<Character> input ) {
+	protected CrossWord( final CharGrid input ) {
 		this.puzzle = input;
 	}
 	
@@ -31,16 +30,13 @@ public class CrossWord {
 	 */
 	public long count( final String word  ) {
 		long count = 0;
+		final int[] dirs = puzzle.getOffsets8( );
 		// start search only when first character of the word is encountered
-		for( final Coord2D c : puzzle.find( word.charAt( 0 ) ) ) { 
+		for( final int c : puzzle.findAll( word.charAt( 0 ) ) ) { 
 			
 			// try find the word in all directions
-			for( final int dx : new int[] { -1, 0, 1 } ) {
-				for( final int dy : new int[] { -1, 0, 1 } ) {
-					if( dx ==0 && dy == 0 ) continue;
-					count += find( word, c, new Coord2D( dx,  dy ) ) ? 1 : 0;
-				}
-			}
+			for( final int d : dirs )
+				count += find( word, c, d ) ? 1 : 0;
 		}
 		return count;
 	}
@@ -50,17 +46,18 @@ public class CrossWord {
 	 * looking in the specified direction
 	 * 
 	 * @param word The word to search
-	 * @param start The puzzle coordinate to start at
-	 * @param dir The direction to search in
+	 * @param start The puzzle cell index to start at
+	 * @param dir The cell index offset of the direction to search in
 	 * @return True iff all of the characters in the word are found in their
 	 *   correct sequence in the given direction
 	 */
-	private boolean find( final String word, final Coord2D start, final Coord2D dir ) {
-		// simply move along until we find an unexpected character
-		Coord2D c = start;
+	private boolean find( final String word, final int start, final int dir ) {
+		// simply move along until we find an unexpected character, the border of
+		// the puzzle grid will never match a character of the word
+		int c = start;
 		for( int i = 0; i < word.length( ) ; i++ ) {
 			if( puzzle.get( c ) != word.charAt( i ) ) return false;
-			c = c.move( dir );
+			c += dir;
 		}
 		
 		// no unexpected character, we found the word!
@@ -80,13 +77,13 @@ public class CrossWord {
 	public long countXMAS( ) {
 		long count = 0;
 		// now find the centre 'A's to start search from
-		for( final Coord2D c : puzzle.find( 'A' ) ) { 
+		final int[] dirs = puzzle.getOffsets8( );
+		for( final int c : puzzle.findAll( 'A' ) ) { 
 
 			// check diagonals for combinations of M's and S's
 			int MASCount = 0;
-			for( final int dx : new int[] { -1, 1 } )
-				for( final int dy : new int[] { -1, 1 } )
-					if( puzzle.get( c.x - dx, c.y - dy ) == 'M' && puzzle.get( c.x + dx, c.y + dy ) == 'S' ) MASCount++;
+			for( int i = 1; i < dirs.length; i += 2 )
+				if( puzzle.get( c - dirs[i] ) == 'M' && puzzle.get( c + dirs[i] ) == 'S' ) MASCount++;
 			
 			// this is a cross if we found exactly two M-S diagonals
 			if( MASCount == 2 ) count ++;
@@ -102,6 +99,6 @@ public class CrossWord {
 	 * @return The crossword puzzle
 	 */
 	public static CrossWord fromStringList( final List<String> in ) {
-		return new CrossWord( CoordGrid.fromCharGrid( in, '.' ) );
+		return new CrossWord( CharGrid.fromStrings( in ) );
 	}
 }
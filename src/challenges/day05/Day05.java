@@ -34,7 +34,7 @@ public class Day05 {
 	 * @param input The ordering rule set and page orderings as two strings
 	 * @return The sum of middle page numbers of valid orderings
 	 */
-	private static long part1( final List<String> input ) {
+	public static long part1( final List<String> input ) {
 		// create manual printer from rule set description
 		final ManualPrinter mp = new ManualPrinter( input.get( 0 ) );
 		
@@ -49,7 +49,7 @@ public class Day05 {
 	 * @param input The ordering rule set and page orderings as two strings
 	 * @return The sum of middle page numbers of valid orderings after reorder
 	 */
-	private static long part2( final List<String> input ) {
+	public static long part2( final List<String> input ) {
 		// create manual printer from rule set description
 		final ManualPrinter mp = new ManualPrinter( input.get( 0 ) );
 
@@ -1,22 +1,18 @@
 package challenges.day06;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
-import aocutil.geometry.Coord2D;
-import aocutil.geometry.Direction;
-import aocutil.grid.CoordGrid;
+import challenges.grid.CharGrid;
 
 /**
  * Models the North Pole suit prototype lab and the guard patrolling it
  */
 public class LabPatrol {
 	/** The layout of the lab and its obstacles */
-	protected CoordGrid<Character> map;
+	protected CharGrid map;
 
-	/** The starting position of the guard patrolling the lab */
-	protected Coord2D guardstart;
+	/** The cell index of the starting position of the guard patrolling the lab */
+	protected int guardstart;
 
 	/**
 	 * Creates a new lab patrol simulation from the given lab layout
@@ -27,13 +23,11 @@ public class LabPatrol {
 	 */
 	public LabPatrol( final List<String> maplayout ) {
 		// create grid from the description
-		map = CoordGrid.fromCharGrid( maplayout, '.' );
+		map = CharGrid.fromStrings( maplayout );
 		
 		// get starting position of guard and remove it from the grid
-		for( final Coord2D g : map.find( '^' ) ) {
-			map.unset( g );
-			guardstart = g;
-		}
+		guardstart = map.find( '^' );
+		map.set( guardstart, '.' );
 	}
 	
 	/**
@@ -54,23 +48,23 @@ public class LabPatrol {
 	 * @param visitChar The char used to mark a visited position
 	 * @return The copy of the lab layout with visited positions marked
 	 */
-	private CoordGrid<Character> getVisitable( final char visitChar ) {
+	private CharGrid getVisitable( final char visitChar ) {
 		// copy the grid and setup the starting position and direction of the guard
-		final CoordGrid<Character> M = map.copy( );
-		Coord2D g = guardstart;
-		Direction gd = Direction.North;
+		final CharGrid M = map.copy( );
+		int g = guardstart;
+		int gd = CharGrid.NORTH;
 		
 		// then simulate the guard moving until it exits the lab
-		while( M.contains( g ) ) {
+		while( M.isInside( g ) ) {
 			// mark position as visited
 			M.set( g, visitChar );
 
 			// find the next move, possibly requiring one or more turns if the next
 			// move would end up in an obstacle
-			Coord2D next = g.move( gd, 1 );
+			int next = M.move( g, gd );
 			while( M.get( next ) == '#' ) {
-				gd = gd.turn( 1 );
-				next = g.move( gd, 1 );
+				gd = CharGrid.turn( gd, 1 );
+				next = M.move( g, gd );
 			}
 			
 			// next position is clear, move to it
@@ -88,25 +82,26 @@ public class LabPatrol {
 	 *   the current lab layout
 	 */
 	private boolean hasLoop( ) {
-		// move the guard but keep track of visited positions
-		final Set<String> V = new HashSet<>( );
+		// move the guard but keep track of visited positions, indexed by cell and
+		// direction
+		final boolean[] V = new boolean[ map.size( ) * 4 ];
 		
 		// start simulation again, continue moving until we either exit the lab
 		// (no loop) or end up at a position + direction we've seen before (loop)
-		Coord2D g = guardstart;
-		Direction gd = Direction.North;
-		while( map.contains( g ) ) {
+		int g = guardstart;
+		int gd = CharGrid.NORTH;
+		while( map.isInside( g ) ) {
 			// check if we already seen this position and direction, otherwise add it
 			// to the history
-			final String key = g.toString( ) + "|" + gd.toString( );
-			if( V.contains( key ) ) return true;
-			V.add( key );
+			final int key = g * 4 + gd;
+			if( V[key] ) return true;
+			V[key] = true;
 
 			// not visited before, continue and determine next move
-			Coord2D next = g.move( gd, 1 );
+			int next = map.move( g, gd );
 			while( map.get( next ) == '#' ) {
-				gd = gd.turn( 1 );
-				next = g.move( gd, 1 );
+				gd = CharGrid.turn( gd, 1 );
+				next = map.move( g, gd );
 			}			
 			g = next;
 		}
@@ -125,17 +120,17 @@ public class LabPatrol {
 	public long countLoops( ) {
 		// find positions that guard visits first, these are potential positions to
 		// create loops. But exclude the starting position of the guard
-		final CoordGrid<Character> V = getVisitable( 'X' );
-		V.unset( guardstart );
+		final CharGrid V = getVisitable( 'X' );
+		V.set( guardstart, '.' );
 		
 		// then simply try adding an obstacle to each of these positions and see if
 		// this will introduce a loop
 		long looping = 0;
-		for( final Coord2D b : V.find( 'X' ) ) {
+		for( final int b : V.findAll( 'X' ) ) {
 			// block the position, try if this creates a loop and unblock again
 			map.set( b, '#' );
 			if( hasLoop( ) ) looping++;
-			map.unset( b );
+			map.set( b, '.' );
 		}
 		
 		// return count of looping obstacle positions
@@ -1,10 +1,11 @@
 package challenges.day08;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 
-import aocutil.geometry.Coord2D;
-import aocutil.grid.CoordGrid;
+import challenges.grid.CharGrid;
 
 /**
  * Class that models a grid of antennas and simulates the projection of
@@ -12,7 +13,7 @@ import aocutil.grid.CoordGrid;
  */
 public class AntennaMap {
 	/** The layout of antennas as a 2D grid */
-	protected CoordGrid<Character> map;
+	protected CharGrid map;
 	
 	/**
 	 * Reconstructs an antenna map from a list of strings that describes a 2D
@@ -22,12 +23,8 @@ public class AntennaMap {
 	 *   row per string
 	 */
 	public AntennaMap( final List<String> input ) {
-		// create grid
-		map = CoordGrid.fromCharGrid( input, '.' );
-		
-		// fix the size to be the same as the input window, otherwise the CoordGrid
-		// will assume the antenna positions to define the boundaries
-		map.fixWindow( new Coord2D( 0, 0 ), new Coord2D( input.get( 0 ).length( ) - 1, input.size( ) - 1) );
+		// create grid, its size is the same as the input window
+		map = CharGrid.fromStrings( input );
 	}
 	
 	/**
@@ -42,36 +39,49 @@ public class AntennaMap {
 	 */
 	public long countAntiNodes( final boolean repeated ) {
 		// build map of antinodes, which must be the same size as the antenna map
-		final CoordGrid<Character> AN = new CoordGrid<Character>( map.window( ).getWidth( ), map.window( ).getHeight( ), '.' );
+		final boolean[] AN = new boolean[ map.size( ) ];
+		long count = 0;
+		
+		// collect the antennas of every frequency (i.e., same letter or digit) in
+		// a single scan of the grid
+		final Map<Character, List<Integer>> F = new HashMap<>( );
+		for( int y = 0; y < map.getHeight( ); y++ ) {
+			for( int x = 0; x < map.getWidth( ); x++ ) {
+				final char ant = map.get( x, y );
+				if( ant == '.' ) continue;
+				F.computeIfAbsent( ant, k -> new ArrayList<>( ) ).add( map.index( x, y ) );
+			}
+		}
 		
 		// go over each antenna and project the antinodes it creates with every
-		// other antenna of the same frequency (i.e., same letter or digit)
-		for( final Entry<Coord2D, Character> e : map.getEntries( ) ) {
-			final Coord2D a = e.getKey( );
-			final char ant = e.getValue( );
-			
-			// find all other antennas of the same type and project the antinodes
-			for( final Coord2D c : map.find( ant ) ) {
-				// do not project if this coordinate is the one we are currently
-				// processing
-				if( c.equals( a ) ) continue;
-				
-				// compute Manhattan distance between both nodes and project along that
-				// vector, or once if no repeated projection is used
-				final Coord2D d = c.diff( a );
-				Coord2D an = repeated ? a : a.move( d );
-				while( AN.contains( an ) ) {
-					AN.set( an, '#' );
-					an = an.move( d );
+		// other antenna of the same frequency
+		for( final List<Integer> A : F.values( ) ) {
+			for( final int a : A ) {
+				final int x = map.getX( a ), y = map.getY( a );
+				for( final int c : A ) {
+					// do not project if this is the antenna we are currently processing
+					if( c == a ) continue;
 					
-					// single projection? then we are done
-					if( !repeated ) break;
+					// compute Manhattan distance between both nodes and project along
+					// that vector, or once if no repeated projection is used
+					final int dx = x - map.getX( c ), dy = y - map.getY( c );
+					int ax = repeated ? x : x + dx;
+					int ay = repeated ? y : y + dy;
+					while( map.contains( ax, ay ) ) {
+						final int an = map.index( ax, ay );
+						if( !AN[an] ) count++;
+						AN[an] = true;
+						ax += dx;
+						ay += dy;
+						
+						// single projection? then we are done
+						if( !repeated ) break;
+					}
 				}
-				
 			}
 		}
 		
 		// return count of all projections within the antinode grid
-		return AN.count( '#' );
+		return count;
 	}
 }
@@ -1,5 +1,7 @@
 package challenges.day09;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
@@ -23,12 +25,13 @@ public class Defragmenter {
 			in[i] = input.charAt( i ) - '0';
 		
 		// keep track of target position and consequential checksum while moving memory
-		int targetpos = 0;
+		long targetpos = 0;
 		long chksum = 0;
 		
-		// pointers to data to write and move
+		// pointers to data to write and move, the right pointer starts at the
+		// last file even if the map ends in free space
 		int ldx = -1;
-		int rdx = in.length - 1;
+		int rdx = (in.length - 1) & ~1;
 
 		// keep moving left hand pointer until there is no more data to write
 		while( ++ldx <= rdx ) {
@@ -39,7 +42,8 @@ public class Defragmenter {
 			if( ldx % 2 == 0 ) {
 				// get block ID to compute checksum of this block and add it
 				final int ID = ldx / 2;
-				for( int i = 0; i < ldata; i++ ) chksum += ID * targetpos++;
+				chksum += checksum( ID, targetpos, ldata );
+				targetpos += ldata;
 				continue;
 			} 
 
@@ -56,14 +60,16 @@ public class Defragmenter {
 					// no, write only what we can, update the checksum and decrease free
 					// space left to write after this block is fitted
 					in[rdx] -= free;
-					while( free-- > 0 ) chksum += ID * targetpos++;
+					chksum += checksum( ID, targetpos, free );
+					targetpos += free;
+					free = 0;
 				} else {
 					// yes, write the remaining part and move right hand pointer to next
 					// data block to be written into this gap
-					while( in[rdx]-- > 0 ) {
-						free--;
-						chksum += ID * targetpos++;
-					}												
+					chksum += checksum( ID, targetpos, rdata );
+					targetpos += rdata;
+					free -= rdata;
+					in[rdx] = 0;
 					
 					// move rdx to next block and check if there is still data to write
 					rdx -= 2;
@@ -76,6 +82,79 @@ public class Defragmenter {
 		return chksum;
 	}
 	
+	/**
+	 * Performs the same defragmentation as defragmentSingle on a disk map file,
+	 * which is memory-mapped rather than read into memory
+	 * 
+	 * @param path The path of the disk map file
+	 * @return The checksum of the memory after defragmentation
+	 * @throws IOException if the file cannot be read
+	 */
+	public static long defragmentSingle( final Path path ) throws IOException {
+		return defragmentSingle( DiskMap.map( path ) );
+	}
+	
+	/**
+	 * Performs the same defragmentation as defragmentSingle in a single pass
+	 * over the disk map, with a pointer moving right over the map and one
+	 * moving left over the files to move. The disk map is not modified, instead
+	 * the number of fragments still to move of the file at the right pointer is
+	 * kept separately, so no memory is needed besides the map itself. Every run
+	 * of fragments is added to the checksum in constant time, so the entries of
+	 * the map may be of any size.
+	 * 
+	 * Checksums that do not fit in a long, which only happens for disk maps of
+	 * billions of entries, wrap around.
+	 * 
+	 * @param map The disk map
+	 * @return The checksum of the memory after defragmentation
+	 */
+	public static long defragmentSingle( final DiskMap map ) {
+		long targetpos = 0;
+		long chksum = 0;
+		
+		// pointers to data to write and move, the right pointer always points at
+		// a file and rdata holds the number of its fragments that are left
+		long ldx = -1;
+		long rdx = (map.length( ) - 1) & ~1L;
+		int rdata = rdx >= 0 ? map.get( rdx ) : 0;
+		
+		// keep moving left hand pointer until there is no more data to write
+		while( ++ldx <= rdx ) {
+			// at even positions we write the file, of which part may have been
+			// moved already if the right pointer is at the same file
+			if( ldx % 2 == 0 ) {
+				final long ID = ldx / 2;
+				final int ldata = ldx == rdx ? rdata : map.get( ldx );
+				chksum += checksum( ID, targetpos, ldata );
+				targetpos += ldata;
+				continue;
+			}
+			
+			// at odd positions we fill the free space with fragments from the right
+			// until it is full or there is no more to move
+			int free = map.get( ldx );
+			while( free > 0 ) {
+				final long ID = rdx / 2;
+				final int n = Math.min( free, rdata );
+				chksum += checksum( ID, targetpos, n );
+				targetpos += n;
+				free -= n;
+				rdata -= n;
+				
+				// move to the next file once all of this file has been moved
+				if( rdata == 0 ) {
+					rdx -= 2;
+					if( rdx < ldx ) break;
+					rdata = map.get( rdx );
+				}
+			}
+		}
+		
+		// return the checksum that is computed during defragmentation
+		return chksum;
+	}
+	
 	/**
 	 * Runs a defragmentation that will try to move FileBlocks as a whole into
 	 * the available space on the left side of its position, given the memory
@@ -127,6 +206,156 @@ public class Defragmenter {
 		for( final FileBlock b : files ) chksum += b.checksum( );
 		return chksum;
 	}
+	
+	/**
+	 * Runs the same defragmentation as defragmentBlock, but finds the gap for
+	 * every file through an index of gaps by size instead of scanning all files
+	 * from the left. Files are kept in flat arrays of position and size rather
+	 * than a list of FileBlocks, so that moving a file takes O(log n) time and
+	 * memory layouts of millions of files can be defragmented.
+	 * 
+	 * @param input The starting layout of the computer memory
+	 * @return The checksum of the resulting memory layout
+	 */
+	public static long defragmentBlockIndexed( final String input ) {
+		return defragmentBlockIndexed( DiskMap.of( input ) );
+	}
+	
+	/**
+	 * Performs the same defragmentation as defragmentBlock on a disk map file,
+	 * which is memory-mapped rather than read into memory
+	 * 
+	 * @param path The path of the disk map file
+	 * @return The checksum of the resulting memory layout
+	 * @throws IOException if the file cannot be read
+	 */
+	public static long defragmentBlock( final Path path ) throws IOException {
+		return defragmentBlockIndexed( DiskMap.map( path ) );
+	}
+	
+	/**
+	 * Runs the gap-indexed block defragmentation on a disk map. Only the file
+	 * positions and sizes are held in memory, which limits the memory layout to
+	 * less than 2^31 blocks. The gap index has a heap for every gap size up to
+	 * the largest gap in the map, so it only suits maps with small gaps. Maps
+	 * with gaps larger than GapHeaps.MAX_INDEXED_SIZE are defragmented with
+	 * defragmentBlockTree instead
+	 * 
+	 * @param map The disk map
+	 * @return The checksum of the resulting memory layout
+	 */
+	public static long defragmentBlockIndexed( final DiskMap map ) {
+		final long length = map.length( );
+		if( length > Integer.MAX_VALUE ) throw new IllegalArgumentException( "Disk map too large for block defragmentation" );
+		
+		// step 1, parse input into file positions and sizes and index the gaps
+		// between them
+		int maxgap = 0;
+		for( int i = 1; i < length; i += 2 ) maxgap = Math.max( maxgap, map.get( i ) );
+		if( maxgap > GapHeaps.MAX_INDEXED_SIZE ) return defragmentBlockTree( map );
+		final int files = (int)((length + 1) / 2);
+		final int[] index = new int[ files ];
+		final int[] size = new int[ files ];
+		final GapHeaps gaps = new GapHeaps( maxgap );
+		long pos = 0;
+		for( int i = 0; i < length; i++ ) {
+			final int s = map.get( i );
+			if( pos + s > Integer.MAX_VALUE ) throw new IllegalArgumentException( "Memory layout too large for block defragmentation" );
+			if( i % 2 == 0 ) {
+				index[i / 2] = (int)pos;
+				size[i / 2] = s;
+			} else gaps.add( (int)pos, s );
+			pos += s;
+		}
+		
+		// step 2, move every file from right to left into the leftmost gap before
+		// it that is large enough. The space it leaves behind is to the right of
+		// all files still to move, so it never needs to be indexed
+		for( int ID = files - 1; ID >= 0; ID-- ) {
+			if( size[ID] == 0 ) continue;
+			final int target = gaps.allocate( size[ID], index[ID] );
+			if( target >= 0 ) index[ID] = target;
+		}
+		
+		// step 3, do the checksum computation and return it
+		long chksum = 0;
+		for( int ID = 0; ID < files; ID++ ) chksum += checksum( ID, index[ID], size[ID] );
+		return chksum;
+	}
+	
+	/**
+	 * Runs the same defragmentation as defragmentBlock, but finds the gap for
+	 * every file through a segment tree over all gaps instead of scanning all
+	 * files from the left. Unlike the gap index by size, the tree does not
+	 * depend on the sizes of the gaps, so it suits disk maps with large files
+	 * and gaps.
+	 * 
+	 * @param input The starting layout of the computer memory
+	 * @return The checksum of the resulting memory layout
+	 */
+	public static long defragmentBlockTree( final String input ) {
+		return defragmentBlockTree( DiskMap.of( input ) );
+	}
+	
+	/**
+	 * Runs the segment tree based block defragmentation on a disk map. Only the
+	 * file and gap positions and sizes are held in memory, the memory layout
+	 * itself may be of any size
+	 * 
+	 * @param map The disk map
+	 * @return The checksum of the resulting memory layout
+	 */
+	public static long defragmentBlockTree( final DiskMap map ) {
+		final long length = map.length( );
+		if( length > Integer.MAX_VALUE ) throw new IllegalArgumentException( "Disk map too large for block defragmentation" );
+		
+		// step 1, parse input into the positions and sizes of files and gaps
+		final int files = (int)((length + 1) / 2);
+		final long[] index = new long[ files ];
+		final int[] size = new int[ files ];
+		final long[] gapstart = new long[ (int)(length / 2) ];
+		final int[] gapsize = new int[ gapstart.length ];
+		long pos = 0;
+		for( int i = 0; i < length; i++ ) {
+			final int s = map.get( i );
+			if( i % 2 == 0 ) {
+				index[i / 2] = pos;
+				size[i / 2] = s;
+			} else {
+				gapstart[i / 2] = pos;
+				gapsize[i / 2] = s;
+			}
+			pos += s;
+		}
+		
+		// step 2, move every file from right to left into the leftmost gap before
+		// it that is large enough
+		final GapTree gaps = new GapTree( gapstart, gapsize );
+		for( int ID = files - 1; ID >= 0; ID-- ) {
+			if( size[ID] == 0 ) continue;
+			final long target = gaps.allocate( size[ID], index[ID] );
+			if( target >= 0 ) index[ID] = target;
+		}
+		
+		// step 3, do the checksum computation and return it
+		long chksum = 0;
+		for( int ID = 0; ID < files; ID++ ) chksum += checksum( ID, index[ID], size[ID] );
+		return chksum;
+	}
+
+	/**
+	 * Computes the checksum of a run of consecutive blocks of the same file,
+	 * which is the sum of ID * i over all block positions i in the run. As the
+	 * positions form an arithmetic series this takes constant time
+	 * 
+	 * @param ID The ID of the file
+	 * @param index The position of the first block
+	 * @param size The number of blocks in the run
+	 * @return The checksum of the run
+	 */
+	protected static long checksum( final long ID, final long index, final long size ) {
+		return ID * (size * index + size * (size - 1) / 2);
+	}
 
 	/**
 	 * Simple container that holds a file with given ID, position and size
@@ -160,9 +389,7 @@ public class Defragmenter {
 		 * @return The checksum
 		 */
 		protected long checksum( ) {
-			long chksum = 0;
-			for( int i = index; i < index + size; i++ ) chksum += i * ID;
-			return chksum;
+			return Defragmenter.checksum( ID, index, size );
 		}
 		
 		/** @return The string describing the block */
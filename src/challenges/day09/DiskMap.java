@@ -0,0 +1,181 @@
+package challenges.day09;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of a disk map that gives random access to the size of every
+ * entry without converting the map into objects. Even entries are files, odd
+ * entries are the gaps between them.
+ *
+ * Disk maps come in two formats. The compact format of the puzzle has a single
+ * digit per entry and is read straight from byte buffers of at most 1 GiB,
+ * such that a disk map file of any size can be memory-mapped without loading
+ * it onto the heap. The general format separates the entries by commas or
+ * whitespace and allows entries larger than 9, e.g. "12,0,3,45,7".
+ */
+public abstract class DiskMap {
+	/** @return The number of entries in the disk map */
+	public abstract long length( );
+
+	/**
+	 * Returns the size of an entry in the disk map
+	 *
+	 * @param index The index of the entry
+	 * @return The size of the entry
+	 */
+	public abstract int get( final long index );
+
+	/**
+	 * Creates a disk map from its compact string representation
+	 *
+	 * @param input The disk map with a single digit per entry
+	 * @return The disk map
+	 */
+	public static DiskMap of( final String input ) {
+		final byte[] bytes = input.getBytes( StandardCharsets.US_ASCII );
+		return new Digits( new ByteBuffer[] { ByteBuffer.wrap( bytes ) }, bytes.length );
+	}
+
+	/**
+	 * Memory-maps a disk map file in the compact format. The mapping remains
+	 * valid after the file has been closed
+	 *
+	 * @param path The path of the disk map file
+	 * @return The disk map
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public static DiskMap map( final Path path ) throws IOException {
+		try( final FileChannel fc = FileChannel.open( path, StandardOpenOption.READ ) ) {
+			final long size = fc.size( );
+			final int n = (int)Math.max( 1, (size + Digits.CHUNK_MASK) >>> Digits.CHUNK_BITS );
+			final ByteBuffer[] chunks = new ByteBuffer[ n ];
+			for( int i = 0; i < n; i++ ) {
+				final long start = (long)i << Digits.CHUNK_BITS;
+				chunks[i] = fc.map( MapMode.READ_ONLY, start, Math.min( size - start, 1L << Digits.CHUNK_BITS ) );
+			}
+			return new Digits( chunks, size );
+		}
+	}
+
+	/**
+	 * Parses a disk map in the general format
+	 *
+	 * @param input The entry sizes, separated by commas or whitespace
+	 * @return The disk map
+	 */
+	public static DiskMap parse( final String input ) {
+		final String s = input.trim( );
+		if( s.isEmpty( ) ) return ofSizes( new int[ 0 ] );
+
+		final String[] parts = s.split( "[,\\s]+" );
+		final int[] sizes = new int[ parts.length ];
+		for( int i = 0; i < parts.length; i++ ) sizes[i] = Integer.parseInt( parts[i] );
+		return ofSizes( sizes );
+	}
+
+	/**
+	 * Creates a disk map from the entry sizes
+	 *
+	 * @param sizes The sizes of all entries, the array is not copied
+	 * @return The disk map
+	 */
+	public static DiskMap ofSizes( final int[] sizes ) {
+		for( int i = 0; i < sizes.length; i++ )
+			if( sizes[i] < 0 ) throw new IllegalArgumentException( "Invalid disk map entry " + sizes[i] + " at " + i );
+		return new Sizes( sizes );
+	}
+
+	/**
+	 * Disk map in the compact format, held in byte buffers
+	 */
+	private static class Digits extends DiskMap {
+		/** The number of bits of the index within a buffer */
+		private static final int CHUNK_BITS = 30;
+
+		/** The mask of the index within a buffer */
+		private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+		/** The buffers that hold consecutive parts of the disk map */
+		protected final ByteBuffer[] chunks;
+
+		/** The number of entries in the disk map */
+		protected final long length;
+
+		/**
+		 * Creates a new disk map over the given buffers. Any trailing characters
+		 * that are not digits, like a line break, are not part of the map
+		 *
+		 * @param chunks The buffers, all but the last must hold exactly 2^30 bytes
+		 * @param size The total number of bytes in the buffers
+		 */
+		protected Digits( final ByteBuffer[] chunks, final long size ) {
+			this.chunks = chunks;
+			long l = size;
+			while( l > 0 && !Character.isDigit( byteAt( l - 1 ) ) ) l--;
+			this.length = l;
+		}
+
+		/** @return The number of entries in the disk map */
+		@Override
+		public long length( ) {
+			return length;
+		}
+
+		/**
+		 * @param index The index of the entry
+		 * @return The size of the entry
+		 */
+		@Override
+		public int get( final long index ) {
+			final int size = byteAt( index ) - '0';
+			if( size < 0 || size > 9 ) throw new IllegalArgumentException( "Invalid disk map entry '" + byteAt( index ) + "' at " + index );
+			return size;
+		}
+
+		/**
+		 * @param index The byte index
+		 * @return The byte at the index
+		 */
+		private char byteAt( final long index ) {
+			return (char)chunks[(int)(index >>> CHUNK_BITS)].get( (int)(index & CHUNK_MASK) );
+		}
+	}
+
+	/**
+	 * Disk map in the general format, held as an array of sizes
+	 */
+	private static class Sizes extends DiskMap {
+		/** The sizes of all entries */
+		protected final int[] sizes;
+
+		/**
+		 * Creates a new disk map from the entry sizes
+		 *
+		 * @param sizes The sizes
+		 */
+		protected Sizes( final int[] sizes ) {
+			this.sizes = sizes;
+		}
+
+		/** @return The number of entries in the disk map */
+		@Override
+		public long length( ) {
+			return sizes.length;
+		}
+
+		/**
+		 * @param index The index of the entry
+		 * @return The size of the entry
+		 */
+		@Override
+		public int get( final long index ) {
+			return sizes[(int)index];
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package challenges.day09;
+
+import java.util.Arrays;
+
+/**
+ * Index of free memory gaps by their size, used to find the leftmost gap that
+ * can hold a file. For every gap size from 1 up to a maximum it keeps a binary
+ * min-heap of the start positions of all gaps of exactly that size, such that
+ * the leftmost gap of at least a given size is the lowest of at most that many
+ * heap tops. Allocating space from a gap takes O(log n) as the remainder of
+ * the gap is moved to the heap of its new size.
+ */
+public class GapHeaps {
+	/** The largest gap size of the compact disk map format */
+	public static final int MAX_SIZE = 9;
+
+	/** The largest gap size the index supports. Every allocation checks the
+	 * heaps of all sizes from the file size up to the largest gap size, so
+	 * larger gaps are better served by a GapTree */
+	public static final int MAX_INDEXED_SIZE = 256;
+
+	/** The largest gap size that can be indexed */
+	protected final int maxsize;
+
+	/** The heaps of gap start positions, indexed by gap size */
+	protected final int[][] heap;
+
+	/** The number of gaps in every heap */
+	protected final int[] count;
+
+	/**
+	 * Creates a new, empty gap index for the compact disk map format
+	 */
+	public GapHeaps( ) {
+		this( MAX_SIZE );
+	}
+
+	/**
+	 * Creates a new, empty gap index
+	 *
+	 * @param maxsize The largest gap size that can be indexed, at most
+	 *   MAX_INDEXED_SIZE
+	 */
+	public GapHeaps( final int maxsize ) {
+		if( maxsize < 0 || maxsize > MAX_INDEXED_SIZE ) throw new IllegalArgumentException( "Invalid maximum gap size " + maxsize + ", use a GapTree for gaps larger than " + MAX_INDEXED_SIZE );
+		this.maxsize = maxsize;
+		heap = new int[ maxsize + 1 ][];
+		count = new int[ maxsize + 1 ];
+	}
+
+	/**
+	 * Adds a gap to the index. Gaps of size 0 are ignored
+	 *
+	 * @param start The start position of the gap
+	 * @param size The size of the gap
+	 */
+	public void add( final int start, final int size ) {
+		if( size == 0 ) return;
+		if( size < 0 || size > maxsize ) throw new IllegalArgumentException( "Invalid gap size " + size );
+
+		// heaps are only created for the sizes that are actually used
+		int[] H = heap[size];
+		if( H == null ) H = heap[size] = new int[ 16 ];
+		else if( count[size] == H.length ) H = heap[size] = Arrays.copyOf( H, H.length * 2 );
+
+		// sift the new gap up from the bottom of the heap
+		int i = count[size]++;
+		while( i > 0 ) {
+			final int p = (i - 1) >> 1;
+			if( H[p] <= start ) break;
+			H[i] = H[p];
+			i = p;
+		}
+		H[i] = start;
+	}
+
+	/**
+	 * Finds the leftmost gap of at least the given size that starts before the
+	 * given position and takes the space for a file of that size from its
+	 * start. The remainder of the gap stays available
+	 *
+	 * @param size The size of the file
+	 * @param before The position before which the gap must start
+	 * @return The start position of the allocated space, -1 if there is no
+	 *   suitable gap
+	 */
+	public int allocate( final int size, final int before ) {
+		// find the heap with the lowest start position among those with gaps that
+		// are large enough
+		int best = -1;
+		int bestpos = before;
+		for( int s = Math.max( 1, size ); s <= maxsize; s++ ) {
+			if( count[s] > 0 && heap[s][0] < bestpos ) {
+				best = s;
+				bestpos = heap[s][0];
+			}
+		}
+		if( best < 0 ) return -1;
+
+		// take the gap from its heap and return the remainder to the index
+		poll( best );
+		add( bestpos + size, best - size );
+		return bestpos;
+	}
+
+	/**
+	 * Removes the gap with the lowest start position from the heap of the given
+	 * size
+	 *
+	 * @param size The gap size
+	 */
+	private void poll( final int size ) {
+		final int[] H = heap[size];
+		final int n = --count[size];
+		final int last = H[n];
+
+		// sift the last gap down from the top of the heap
+		int i = 0;
+		while( true ) {
+			int c = 2 * i + 1;
+			if( c >= n ) break;
+			if( c + 1 < n && H[c + 1] < H[c] ) c++;
+			if( H[c] >= last ) break;
+			H[i] = H[c];
+			i = c;
+		}
+		H[i] = last;
+	}
+
+	/** @return The total number of gaps in the index */
+	public int size( ) {
+		int n = 0;
+		for( int s = 1; s <= maxsize; s++ ) n += count[s];
+		return n;
+	}
+}
@@ -0,0 +1,139 @@
+package challenges.day09;
+
+/**
+ * First-fit allocator over a fixed set of free memory gaps, ordered by their
+ * start position. The gaps are the leaves of a segment tree in which every
+ * node stores the largest free run in its range, such that the leftmost gap
+ * of at least a given size is found by descending from the root into the
+ * leftmost child that is large enough. Both finding a gap and taking space
+ * from it take O(log n), regardless of the sizes of the gaps and files.
+ *
+ * Space is always taken from the start of a gap, so the gaps stay ordered by
+ * position. Gaps can also be resized freely, which allows other allocation
+ * policies to be simulated on top of the tree.
+ */
+public class GapTree {
+	/** The number of gaps */
+	protected final int gaps;
+
+	/** The number of leaves of the tree, a power of two */
+	protected final int leaves;
+
+	/** The current start position of every gap */
+	protected final long[] start;
+
+	/** The largest free run in the range of every node. The root is at index 1
+	 * and the gaps are the leaves, starting at index leaves */
+	protected final int[] tree;
+
+	/**
+	 * Creates a new allocator
+	 *
+	 * @param start The start positions of the gaps, in increasing order. The
+	 *   array is used by the allocator
+	 * @param size The sizes of the gaps
+	 */
+	public GapTree( final long[] start, final int[] size ) {
+		if( start.length != size.length ) throw new IllegalArgumentException( "Gap starts and sizes differ in length" );
+		this.gaps = start.length;
+		this.start = start;
+
+		int l = 1;
+		while( l < gaps ) l <<= 1;
+		leaves = l;
+
+		// fill the leaves and compute the maxima of all inner nodes bottom-up
+		tree = new int[ 2 * leaves ];
+		for( int i = 0; i < gaps; i++ ) {
+			if( size[i] < 0 ) throw new IllegalArgumentException( "Invalid gap size " + size[i] );
+			tree[leaves + i] = size[i];
+		}
+		for( int n = leaves - 1; n > 0; n-- ) tree[n] = Math.max( tree[2 * n], tree[2 * n + 1] );
+	}
+
+	/**
+	 * Finds the leftmost gap of at least the given size that starts before the
+	 * given position
+	 *
+	 * @param size The required size
+	 * @param before The position before which the gap must start
+	 * @return The index of the gap, -1 if there is no suitable gap
+	 */
+	public int findFirst( final int size, final long before ) {
+		if( gaps == 0 || tree[1] < size ) return -1;
+
+		// descend into the leftmost child that holds a large enough gap
+		int n = 1;
+		while( n < leaves ) n = tree[2 * n] >= size ? 2 * n : 2 * n + 1;
+
+		// all gaps to the left of it are too small, so if this one starts too late
+		// there is no suitable gap at all
+		final int gap = n - leaves;
+		return start[gap] < before ? gap : -1;
+	}
+
+	/**
+	 * Finds the leftmost gap of at least the given size that starts before the
+	 * given position and takes the space for a file of that size from its
+	 * start
+	 *
+	 * @param size The size of the file
+	 * @param before The position before which the gap must start
+	 * @return The start position of the allocated space, -1 if there is no
+	 *   suitable gap
+	 */
+	public long allocate( final int size, final long before ) {
+		final int gap = findFirst( size, before );
+		if( gap < 0 ) return -1;
+
+		final long pos = start[gap];
+		start[gap] += size;
+		resize( gap, tree[leaves + gap] - size );
+		return pos;
+	}
+
+	/**
+	 * Changes the size of a gap and updates the maxima of all ranges that
+	 * contain it
+	 *
+	 * @param gap The index of the gap
+	 * @param size The new size of the gap
+	 */
+	public void resize( final int gap, final int size ) {
+		if( size < 0 ) throw new IllegalArgumentException( "Invalid gap size " + size );
+
+		int n = leaves + gap;
+		tree[n] = size;
+		for( n >>= 1; n > 0; n >>= 1 ) {
+			final int max = Math.max( tree[2 * n], tree[2 * n + 1] );
+			if( tree[n] == max ) break;
+			tree[n] = max;
+		}
+	}
+
+	/**
+	 * @param gap The index of the gap
+	 * @return The current start position of the gap
+	 */
+	public long getStart( final int gap ) {
+		return start[gap];
+	}
+
+	/**
+	 * @param gap The index of the gap
+	 * @return The current size of the gap
+	 */
+	public int getSize( final int gap ) {
+		return tree[leaves + gap];
+	}
+
+	/** @return The size of the largest gap */
+	public int getMaxSize( ) {
+		return gaps == 0 ? 0 : tree[1];
+	}
+
+	/** @return The number of gaps */
+	public int size( ) {
+		return gaps;
+	}
+}
@@ -1,20 +1,16 @@
 package challenges.day10;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.Stack;
 
-import aocutil.geometry.Coord2D;
-import aocutil.grid.CoordGrid;
+import challenges.grid.CharGrid;
 
 /**
  * Class to represent a height map of a hiking area and find trails with even,
  * gradually upwards slopes
  */
 public class TrailMap {
-	/** The height map of the hiking area */
-	protected final CoordGrid<Integer> map;
+	/** The height map of the hiking area, holding digits '0' to '9' */
+	protected final CharGrid map;
 	
 	/**
 	 * Creates the trail map from a list of strings that represent the heights
@@ -24,7 +20,7 @@ public class TrailMap {
 	 *   string per row of the grid
 	 */
 	public TrailMap( final List<String> input ) {
-		map = CoordGrid.fromDigitGrid( input );
+		map = CharGrid.fromStrings( input );
 	}
 
 	/**
@@ -37,64 +33,75 @@ public class TrailMap {
 	 * @return The count of distinct trails or trail heads, depending on the flag
 	 */
 	public long countTrails( final boolean distinctTrail ) {
-		// find and sum counts from every possible trail head
-		return map.find( 0 ).stream( ).mapToLong( start -> countTrails( start, distinctTrail ) ).sum( );
+		// find and sum counts from every possible trail head, reusing the same
+		// search buffers for all of them
+		final int[] paths = new int[ map.size( ) ];
+		final int[] seen = new int[ map.size( ) ];
+		long count = 0;
+		for( final int start : map.findAll( '0' ) ) count += countTrails( start, distinctTrail, paths, seen );
+		return count;
 	}
 	
 	/**
 	 * Finds all unique, complete trails that start from the given trail head and
 	 * returns the requested count
 	 * 
-	 * @param start The trail head to start trail search from
+	 * @param start The cell index of the trail head to start trail search from
 	 * @param distinctTrail True to count distinct trails, false to count distinct
 	 *   trail end
+	 * @param paths Buffer that holds for every cell the number of distinct paths
+	 *   to reach it from the trail head
+	 * @param seen Buffer that holds for every cell the trail head it was last
+	 *   reached from, to tell whether its path count is still valid
 	 * @return The count of distinct trails or trail ends
 	 */
-	private long countTrails( final Coord2D start, final boolean distinctTrail ) {
+	private long countTrails( final int start, final boolean distinctTrail, final int[] paths, final int[] seen ) {
 		// do a BFS search from the given trail start and traverse all paths that 
-		// are monotonically increasing in elevation
+		// are monotonically increasing in elevation. Instead of exploring every
+		// path separately, the number of paths that reach a cell is tracked so
+		// that every cell only has to be explored once per level
 		
-		// setup stack of next search nodes, initialise with trail start and no elevation
-		Stack<Coord2D> explore = new Stack<>( );
-		explore.push( start );
-		int level = 0;
+		// setup list of next search nodes, initialise with trail start
+		int[] explore = new int[] { start };
+		int size = 1;
+		paths[start] = 1;
+		seen[start] = start;
 
-		// initialise set to hold all trail ends and count of paths
-		final Set<Coord2D> ends = new HashSet<>( );
-		int count = 0;
-		
-		// keep on exploring until no more new nodes to explore
-		while( !explore.isEmpty( ) ) {
-			final Stack<Coord2D> next = new Stack<>( );
-			level++;
+		// keep on exploring until we have reached the highest level
+		for( char level = '1'; level <= '9' && size > 0; level++ ) {
+			final int[] next = new int[ size * 4 ];
+			int nextsize = 0;
 			
 			// try exploring each node in this BFS round
-			while( !explore.isEmpty( ) && level < 10 ) {
-				// final all neighbours of this node
-				final Coord2D c = explore.pop( );
-				for( final Coord2D n : map.getNeighbours( c, false ) ) {
+			for( int i = 0; i < size; i++ ) {
+				// find all neighbours of this node
+				final int c = explore[i];
+				for( int d = 0; d < 4; d++ ) {
 					// consider only neighbouring slopes that increase by one level
+					final int n = map.move( c, d );
 					if( map.get( n ) != level ) continue;
 					
-					// have we encountered a trail end?
-					if( map.get( n  ) == 9 ) {
-						// yes, count it as a unique way to reach it (e.g., a unique path)
-						// and add the end to the set of reachable ends
-						count++;
-						ends.add( n );
-					} else {
-						// not a trail end yet, add to the set of nodes to explore in the
-						// next round
-						next.push( n );
+					// add the paths to reach this node to that of its neighbour and
+					// explore it in the next round, if not already added
+					if( seen[n] != start ) {
+						seen[n] = start;
+						paths[n] = 0;
+						next[nextsize++] = n;
 					}
+					paths[n] += paths[c];
 				}
 			}
 
-			// swap stacks of nodes explore in next round of BFS
+			// swap lists of nodes to explore in next round of BFS
 			explore = next;
+			size = nextsize;
 		}
 		
-		// return count of distinct ends or trails depending on flag
-		return distinctTrail ? count : ends.size( );
+		// the nodes left to explore are the trail ends, return count of distinct
+		// ends or trails depending on flag
+		if( !distinctTrail ) return size;
+		long count = 0;
+		for( int i = 0; i < size; i++ ) count += paths[explore[i]];
+		return count;
 	}
 }
@@ -0,0 +1,448 @@
+package challenges.day12;
+
+import java.util.Arrays;
+import java.util.List;
+
+import challenges.grid.CharGrid;
+
+/**
+ * Mutable garden in which single plants can be replanted while the cost of
+ * fencing all regions is kept up to date.
+ *
+ * Every plant holds the number of its region, and for every region the area,
+ * perimeter and number of sides (corners) are kept, as well as the sum of both
+ * fence costs over all regions. The perimeter segments and corners of a plant
+ * only depend on its 3x3 neighbourhood, so replanting a plant only changes the
+ * statistics of the plants around it. These are taken out before and added
+ * back after the change.
+ *
+ * The region of the old plant type may be split by the change. This can only
+ * happen if the plants of that type around the changed plant are not already
+ * connected via the ring of eight neighbours. Only then the region is searched
+ * from every separate neighbour at the same time, one plant per search in
+ * turn, until all but one of the parts have been fully explored or the
+ * searches meet. The explored parts get new region numbers. The regions of the
+ * new plant type around the changed plant are merged into the largest of them,
+ * relabelling only the plants of the smaller regions.
+ *
+ * An update is therefore not bounded by the boundary of the affected region.
+ * Changes that do not touch connectivity only cost the 3x3 neighbourhood. A
+ * split costs O(a) for the area a of the smaller parts that are split off, as
+ * those are searched and relabelled; a merge costs the area of the smaller
+ * regions. Merging small into large amortises that to O(log n) relabellings
+ * per plant over a sequence of merges, as a plant only ever moves to a region
+ * of at least twice the size, but splits in between can undo it. A single cell
+ * that bridges two large halves thus costs as much to toggle as a full
+ * recomputation of the plot, or a few times more when it splits them. Bounding updates by the boundary would require a
+ * fully dynamic connectivity structure, which is not worth its complexity for
+ * gardens in which most replantings are local.
+ */
+public class GardenModel {
+	/** The garden plot */
+	protected final CharGrid plot;
+
+	/** The region number of every plant */
+	protected final int[] label;
+
+	/** The area, perimeter and number of sides of every region */
+	protected int[] area, perimeter, sides;
+
+	/** Region numbers that are no longer used */
+	protected int[] free;
+
+	/** The number of unused region numbers and the number of region numbers
+	 * ever used */
+	protected int freecount, regioncount;
+
+	/** The sum of area times perimeter and area times sides over all regions */
+	protected long perimcost, sidecost;
+
+	/** The stamps of the plants visited by the searches of a split, the search
+	 * index is added to the stamp */
+	private final int[] mark;
+
+	/** The current stamp */
+	private int stamp;
+
+	/** The queues of the split searches, which keep all visited plants */
+	private final int[][] queue = new int[ 4 ][];
+
+	/** The offsets of the eight neighbours of a plant in clockwise order,
+	 * starting north */
+	private final int[] ring;
+
+	/**
+	 * Creates a new garden model from the plant layout
+	 *
+	 * @param input List of strings that describe the plant layouts in the
+	 *   garden. One string is a single row of the garden
+	 */
+	public GardenModel( final List<String> input ) {
+		plot = CharGrid.fromStrings( input );
+		label = new int[ plot.size( ) ];
+		mark = new int[ plot.size( ) ];
+		ring = plot.getOffsets8( );
+		area = new int[ 64 ];
+		perimeter = new int[ 64 ];
+		sides = new int[ 64 ];
+		free = new int[ 16 ];
+		for( int i = 0; i < queue.length; i++ ) queue[i] = new int[ 64 ];
+
+		// label all regions and compute their statistics
+		Arrays.fill( label, -1 );
+		int[] stack = new int[ 64 ];
+		for( int y = 0; y < plot.getHeight( ); y++ ) {
+			for( int x = 0; x < plot.getWidth( ); x++ ) {
+				final int start = plot.index( x, y );
+				if( label[start] >= 0 ) continue;
+
+				final int r = newRegion( );
+				final char p = plot.get( start );
+				int sp = 0;
+				stack[sp++] = start;
+				label[start] = r;
+				while( sp > 0 ) {
+					final int c = stack[--sp];
+					area[r]++;
+					addPlant( c, r, 1 );
+					for( int d = 0; d < 4; d++ ) {
+						final int n = plot.move( c, d );
+						if( plot.get( n ) != p || label[n] >= 0 ) continue;
+						label[n] = r;
+						if( sp == stack.length ) stack = Arrays.copyOf( stack, sp * 2 );
+						stack[sp++] = n;
+					}
+				}
+				account( r, 1 );
+			}
+		}
+	}
+
+	/**
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The plant at the position
+	 */
+	public char get( final int x, final int y ) {
+		return plot.get( x, y );
+	}
+
+	/**
+	 * Computes the cost of fencing all regions of plants in the garden in
+	 * constant time
+	 *
+	 * @param sidecount False to use number of perimeter segments to compute the
+	 *   fencing costs, True to use sides (consecutive perimeter segments)
+	 * @return The cost of fencing all regions
+	 */
+	public long fenceCost( final boolean sidecount ) {
+		return sidecount ? sidecost : perimcost;
+	}
+
+	/** @return The number of regions in the garden */
+	public int getRegionCount( ) {
+		return regioncount - freecount;
+	}
+
+	/**
+	 * Replants a single plant and updates the regions and fence costs
+	 *
+	 * @param x The x coordinate of the plant
+	 * @param y The y coordinate of the plant
+	 * @param plant The new plant type
+	 */
+	public void set( final int x, final int y, final char plant ) {
+		if( !plot.contains( x, y ) ) throw new IllegalArgumentException( "Position (" + x + "," + y + ") is outside of the garden" );
+		if( plant == CharGrid.OUTSIDE ) throw new IllegalArgumentException( "Invalid plant type" );
+		final int c = plot.index( x, y );
+		final char old = plot.get( c );
+		if( old == plant ) return;
+
+		// take out the costs of all regions around the plant and the statistics of
+		// the plants in its neighbourhood, which may all change
+		final int R = label[c];
+		for( int i = -1; i < 8; i++ ) {
+			final int q = i < 0 ? c : c + ring[i];
+			if( !plot.isInside( q ) ) continue;
+			if( !isRepeated( c, q, i ) ) account( label[q], -1 );
+			addPlant( q, label[q], -1 );
+		}
+		area[R]--;
+
+		// replant and split the old region if needed
+		plot.set( c, plant );
+		if( area[R] == 0 ) freeRegion( R );
+		else split( c, old, R );
+
+		// merge the regions of the new type around the plant
+		merge( c, plant );
+
+		// and add back the statistics of the neighbourhood and the costs of all
+		// regions in it
+		area[label[c]]++;
+		for( int i = -1; i < 8; i++ ) {
+			final int q = i < 0 ? c : c + ring[i];
+			if( !plot.isInside( q ) ) continue;
+			addPlant( q, label[q], 1 );
+		}
+		for( int i = -1; i < 8; i++ ) {
+			final int q = i < 0 ? c : c + ring[i];
+			if( plot.isInside( q ) && !isRepeated( c, q, i ) ) account( label[q], 1 );
+		}
+	}
+
+	/**
+	 * Checks whether the region of a plant in the neighbourhood has already been
+	 * seen at an earlier plant of the neighbourhood, to account for the costs of
+	 * every region only once
+	 *
+	 * @param c The center plant
+	 * @param q The plant in the neighbourhood
+	 * @param i The index of the plant in the neighbourhood, -1 for the center
+	 * @return True if an earlier plant has the same region
+	 */
+	private boolean isRepeated( final int c, final int q, final int i ) {
+		for( int j = -1; j < i; j++ ) {
+			final int e = j < 0 ? c : c + ring[j];
+			if( plot.isInside( e ) && label[e] == label[q] ) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Splits the region of the old plant type if the replanted plant separated
+	 * it into multiple parts
+	 *
+	 * @param c The replanted plant
+	 * @param old The old plant type
+	 * @param R The region of the old plant type
+	 */
+	private void split( final int c, final char old, final int R ) {
+		// find the groups of orthogonal neighbours of the old type that are
+		// connected via the ring around the plant
+		final boolean[] same = new boolean[ 8 ];
+		for( int i = 0; i < 8; i++ ) same[i] = plot.get( c + ring[i] ) == old;
+		final int[] group = new int[ 4 ];
+		final int[] seed = new int[ 4 ];
+		int groups = 0;
+		for( int k = 0; k < 4; k++ ) {
+			if( !same[2 * k] ) { group[k] = -1; continue; }
+			if( k > 0 && group[k - 1] >= 0 && same[2 * k - 1] ) group[k] = group[k - 1];
+			else {
+				seed[groups] = c + ring[2 * k];
+				group[k] = groups++;
+			}
+		}
+		// the last neighbour may connect back to the first one
+		if( groups > 1 && group[3] >= 0 && group[0] >= 0 && same[7] && group[3] != group[0] ) groups--;
+		if( groups <= 1 ) return;
+
+		// search from every group in turn until at most one of the parts has not
+		// been fully explored. Searches that meet join their parts
+		stamp += 4;
+		final int[] head = new int[ groups ];
+		final int[] tail = new int[ groups ];
+		final int[] part = new int[ groups ];
+		for( int g = 0; g < groups; g++ ) {
+			part[g] = g;
+			queue[g][0] = seed[g];
+			tail[g] = 1;
+			mark[seed[g]] = stamp + g;
+		}
+		while( true ) {
+			// count the parts that are still being explored
+			int open = 0;
+			for( int g = 0; g < groups; g++ )
+				if( part[g] == g && isOpen( g, part, head, tail ) ) open++;
+			if( open <= 1 ) break;
+
+			for( int g = 0; g < groups; g++ ) {
+				if( head[g] == tail[g] ) continue;
+				final int q = queue[g][head[g]++];
+				for( int d = 0; d < 4; d++ ) {
+					final int n = plot.move( q, d );
+					if( plot.get( n ) != old ) continue;
+					if( mark[n] >= stamp && mark[n] < stamp + 4 ) {
+						// met another search, join the parts
+						final int a = root( part, g );
+						final int b = root( part, mark[n] - stamp );
+						if( a != b ) part[Math.max( a, b )] = Math.min( a, b );
+						continue;
+					}
+					mark[n] = stamp + g;
+					if( tail[g] == queue[g].length ) queue[g] = Arrays.copyOf( queue[g], tail[g] * 2 );
+					queue[g][tail[g]++] = n;
+				}
+			}
+		}
+
+		// the part that is still open, or the largest if all are explored, keeps
+		// the region. All other parts become new regions
+		int keep = -1;
+		for( int g = 0; g < groups; g++ ) {
+			if( root( part, g ) != g ) continue;
+			if( keep < 0 || isOpen( g, part, head, tail ) || (!isOpen( keep, part, head, tail ) && size( g, part, tail ) > size( keep, part, tail )) ) keep = g;
+		}
+		for( int g = 0; g < groups; g++ ) {
+			if( root( part, g ) != g || g == keep ) continue;
+			final int r = newRegion( );
+			for( int h = 0; h < groups; h++ ) {
+				if( root( part, h ) != g ) continue;
+				for( int i = 0; i < tail[h]; i++ ) {
+					// plants around the replanted one are not accounted for at the moment
+					final int q = queue[h][i];
+					label[q] = r;
+					area[R]--;
+					area[r]++;
+					if( Math.abs( plot.getX( c ) - plot.getX( q ) ) > 1 || Math.abs( plot.getY( c ) - plot.getY( q ) ) > 1 ) {
+						addPlant( q, R, -1 );
+						addPlant( q, r, 1 );
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param g The search index
+	 * @param part The part of every search
+	 * @param head The queue head of every search
+	 * @param tail The queue tail of every search
+	 * @return True if any of the searches of the part of the search still has
+	 *   plants to explore
+	 */
+	private static boolean isOpen( final int g, final int[] part, final int[] head, final int[] tail ) {
+		final int r = root( part, g );
+		for( int h = 0; h < part.length; h++ )
+			if( root( part, h ) == r && head[h] < tail[h] ) return true;
+		return false;
+	}
+
+	/**
+	 * @param g The search index
+	 * @param part The part of every search
+	 * @param tail The queue tail of every search
+	 * @return The number of plants found by the searches of the part
+	 */
+	private static int size( final int g, final int[] part, final int[] tail ) {
+		final int r = root( part, g );
+		int n = 0;
+		for( int h = 0; h < part.length; h++ ) if( root( part, h ) == r ) n += tail[h];
+		return n;
+	}
+
+	/**
+	 * @param part The part of every search
+	 * @param g The search index
+	 * @return The lowest search index of the part
+	 */
+	private static int root( final int[] part, int g ) {
+		while( part[g] != g ) g = part[g];
+		return g;
+	}
+
+	/**
+	 * Assigns the replanted plant to a region of its new type, merging all
+	 * regions of that type around it into the largest of them
+	 *
+	 * @param c The replanted plant
+	 * @param plant The new plant type
+	 */
+	private void merge( final int c, final char plant ) {
+		// find the largest region of the new type around the plant
+		int big = -1;
+		for( int d = 0; d < 4; d++ ) {
+			final int n = plot.move( c, d );
+			if( plot.get( n ) == plant && (big < 0 || area[label[n]] > area[big]) ) big = label[n];
+		}
+		if( big < 0 ) big = newRegion( );
+		label[c] = big;
+
+		// relabel the plants of all other regions, moving their statistics
+		for( int d = 0; d < 4; d++ ) {
+			final int n = plot.move( c, d );
+			if( plot.get( n ) != plant || label[n] == big ) continue;
+			final int r = label[n];
+			area[big] += area[r];
+			perimeter[big] += perimeter[r];
+			sides[big] += sides[r];
+			relabel( n, r, big );
+			freeRegion( r );
+		}
+	}
+
+	/**
+	 * Relabels all plants of a region that are connected to a plant
+	 *
+	 * @param start The plant to start from
+	 * @param from The region to relabel
+	 * @param to The new region
+	 */
+	private void relabel( final int start, final int from, final int to ) {
+		int[] stack = queue[0];
+		int sp = 0;
+		stack[sp++] = start;
+		label[start] = to;
+		while( sp > 0 ) {
+			final int q = stack[--sp];
+			for( int d = 0; d < 4; d++ ) {
+				final int n = plot.move( q, d );
+				if( !plot.isInside( n ) || label[n] != from ) continue;
+				label[n] = to;
+				if( sp == stack.length ) stack = queue[0] = Arrays.copyOf( stack, sp * 2 );
+				stack[sp++] = n;
+			}
+		}
+	}
+
+	/**
+	 * Adds or removes the perimeter segments and corners of a plant to or from
+	 * the statistics of a region
+	 *
+	 * @param c The plant
+	 * @param r The region
+	 * @param sign 1 to add, -1 to remove
+	 */
+	private void addPlant( final int c, final int r, final int sign ) {
+		final char p = plot.get( c );
+		int perim = 0;
+		for( int d = 0; d < 4; d++ ) if( plot.get( plot.move( c, d ) ) != p ) perim++;
+		perimeter[r] += sign * perim;
+		sides[r] += sign * RegionLabeller.countCorners( plot, c );
+	}
+
+	/**
+	 * Adds or removes the fence costs of a region to or from the totals
+	 *
+	 * @param r The region
+	 * @param sign 1 to add, -1 to remove
+	 */
+	private void account( final int r, final int sign ) {
+		perimcost += sign * (long)area[r] * perimeter[r];
+		sidecost += sign * (long)area[r] * sides[r];
+	}
+
+	/** @return A new, empty region */
+	private int newRegion( ) {
+		if( freecount > 0 ) return free[--freecount];
+		if( regioncount == area.length ) {
+			area = Arrays.copyOf( area, regioncount * 2 );
+			perimeter = Arrays.copyOf( perimeter, regioncount * 2 );
+			sides = Arrays.copyOf( sides, regioncount * 2 );
+		}
+		return regioncount++;
+	}
+
+	/**
+	 * Releases a region that no longer has any plants
+	 *
+	 * @param r The region
+	 */
+	private void freeRegion( final int r ) {
+		area[r] = 0;
+		perimeter[r] = 0;
+		sides[r] = 0;
+		if( freecount == free.length ) free = Arrays.copyOf( free, freecount * 2 );
+		free[freecount++] = r;
+	}
+}
@@ -0,0 +1,285 @@
+package challenges.day12;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import challenges.grid.CharGrid;
+
+/**
+ * Finds the regions of a garden plot by two-pass connected component
+ * labelling with union-find, and determines the area, perimeter and number of
+ * sides of every region along the way.
+ *
+ * The plot is cut into horizontal stripes that are labelled in parallel. Each
+ * stripe is scanned row by row, giving every plant the label of its western or
+ * northern neighbour if that is of the same type, joining both labels if they
+ * differ, and a new label otherwise. Only the labels of the previous row are
+ * kept, so the memory use besides the plot only depends on the width of the
+ * plot and the number of labels. The area, perimeter segments and corners of
+ * every plant only depend on its direct neighbourhood, so they are added to
+ * the label of the plant during the same scan. The number of sides of a region
+ * equals its number of corners.
+ *
+ * Once all stripes are done, the labels of the rows on both sides of every
+ * stripe border are joined where the plants match, and the statistics of all
+ * labels are summed per region.
+ */
+public class RegionLabeller {
+	/** The garden plot */
+	protected final CharGrid plot;
+
+	/** The area of every region */
+	protected final long[] area;
+
+	/** The perimeter of every region */
+	protected final long[] perimeter;
+
+	/** The number of sides of every region */
+	protected final long[] sides;
+
+	/**
+	 * Labels the regions of the garden plot
+	 *
+	 * @param plot The garden plot
+	 * @param pool The pool to label the stripes of the plot on
+	 */
+	public RegionLabeller( final CharGrid plot, final ForkJoinPool pool ) {
+		this.plot = plot;
+
+		// label the stripes in parallel, using a few stripes per thread to
+		// balance the work
+		final int H = plot.getHeight( );
+		final int n = Math.max( 1, Math.min( H, pool.getParallelism( ) * 4 ) );
+		final Stripe[] stripes = new Stripe[ n ];
+		for( int i = 0; i < n; i++ ) stripes[i] = new Stripe( (int)((long)H * i / n), (int)((long)H * (i + 1) / n) );
+		for( final Stripe s : stripes ) pool.execute( s );
+		for( final Stripe s : stripes ) s.join( );
+
+		// combine the labels of all stripes into a single union-find forest, in
+		// which every label starts out at the root label of its stripe
+		final int[] base = new int[ n + 1 ];
+		for( int i = 0; i < n; i++ ) base[i + 1] = base[i] + stripes[i].labels;
+		final int[] P = new int[ base[n] ];
+		for( int i = 0; i < n; i++ )
+			for( int l = 0; l < stripes[i].labels; l++ ) P[base[i] + l] = base[i] + stripes[i].parent[l];
+
+		// join the labels of matching plants on both sides of every stripe border
+		for( int i = 1; i < n; i++ ) {
+			final int y = stripes[i].y0;
+			for( int x = 0; x < plot.getWidth( ); x++ )
+				if( plot.get( x, y ) == plot.get( x, y - 1 ) ) union( P, base[i - 1] + stripes[i - 1].last[x], base[i] + stripes[i].first[x] );
+		}
+
+		// number the regions. Roots are always the lowest label of their set, so
+		// once every label points directly at its root, going over the labels in
+		// order numbers every root before any of the labels that point to it. The
+		// region number is stored as a negative value in place of the parent
+		for( int l = 0; l < P.length; l++ ) P[l] = find( P, l );
+		int regions = 0;
+		for( int l = 0; l < P.length; l++ ) P[l] = P[l] == l ? -(++regions) : P[P[l]];
+
+		// and sum the statistics of all labels per region
+		area = new long[ regions ];
+		perimeter = new long[ regions ];
+		sides = new long[ regions ];
+		for( int i = 0; i < n; i++ ) {
+			final Stripe s = stripes[i];
+			for( int l = 0; l < s.labels; l++ ) {
+				final int r = -P[base[i] + l] - 1;
+				area[r] += s.area[l];
+				perimeter[r] += s.perimeter[l];
+				sides[r] += s.corners[l];
+			}
+		}
+	}
+
+	/**
+	 * Finds the root label of a label, halving the path to it on the way
+	 *
+	 * @param P The parent of every label
+	 * @param l The label
+	 * @return The root label
+	 */
+	private static int find( final int[] P, int l ) {
+		while( P[l] != l ) {
+			P[l] = P[P[l]];
+			l = P[l];
+		}
+		return l;
+	}
+
+	/**
+	 * Joins the sets of two labels, the lowest root becomes the root of the
+	 * joined set
+	 *
+	 * @param P The parent of every label
+	 * @param a The first label
+	 * @param b The second label
+	 * @return The root of the joined set
+	 */
+	private static int union( final int[] P, final int a, final int b ) {
+		final int ra = find( P, a );
+		final int rb = find( P, b );
+		if( ra < rb ) P[rb] = ra;
+		else P[ra] = rb;
+		return Math.min( ra, rb );
+	}
+
+	/** @return The number of regions in the plot */
+	public int getRegionCount( ) {
+		return area.length;
+	}
+
+	/**
+	 * @param region The region number
+	 * @return The number of plants in the region
+	 */
+	public long getArea( final int region ) {
+		return area[region];
+	}
+
+	/**
+	 * @param region The region number
+	 * @return The number of perimeter segments of the region
+	 */
+	public long getPerimeter( final int region ) {
+		return perimeter[region];
+	}
+
+	/**
+	 * @param region The region number
+	 * @return The number of sides of the region
+	 */
+	public long getSides( final int region ) {
+		return sides[region];
+	}
+
+	/**
+	 * Computes the cost of fencing all regions
+	 *
+	 * @param sidecount False to use number of perimeter segments to compute the
+	 *   fencing costs, True to use sides (consecutive perimeter segments)
+	 * @return The total cost of fencing
+	 */
+	public long fenceCost( final boolean sidecount ) {
+		long cost = 0;
+		for( int r = 0; r < area.length; r++ ) cost += area[r] * (sidecount ? sides[r] : perimeter[r]);
+		return cost;
+	}
+
+	/**
+	 * Counts the number of region corners at a plant, which is the number of
+	 * diagonal directions in which both orthogonal neighbours are of another
+	 * type (an outer corner) or both are of the same type while the diagonal
+	 * neighbour is not (an inner corner)
+	 *
+	 * @param plot The garden plot
+	 * @param c The cell index of the plant
+	 * @return The number of corners
+	 */
+	protected static int countCorners( final CharGrid plot, final int c ) {
+		final char p = plot.get( c );
+		int corners = 0;
+		for( int d = 0; d < 4; d++ ) {
+			final int d2 = CharGrid.turn( d, 1 );
+			final int a = plot.move( c, d );
+			final boolean sa = plot.get( a ) == p;
+			final boolean sb = plot.get( plot.move( c, d2 ) ) == p;
+			if( !sa && !sb ) corners++;
+			else if( sa && sb && plot.get( plot.move( a, d2 ) ) != p ) corners++;
+		}
+		return corners;
+	}
+
+	/**
+	 * Task that labels a stripe of rows of the plot
+	 */
+	private class Stripe extends RecursiveAction {
+		/** Serial version UID */
+		private static final long serialVersionUID = 1L;
+
+		/** The first row of the stripe and the row after its last */
+		protected final int y0, y1;
+
+		/** The number of labels used in the stripe */
+		protected int labels;
+
+		/** The parent of every label, the root label after labelling */
+		protected int[] parent;
+
+		/** The area, perimeter and corners of the plants of every label */
+		protected int[] area, perimeter, corners;
+
+		/** The labels of the first and last row of the stripe */
+		protected int[] first, last;
+
+		/**
+		 * Creates a new stripe
+		 *
+		 * @param y0 The first row
+		 * @param y1 The row after the last row
+		 */
+		public Stripe( final int y0, final int y1 ) {
+			this.y0 = y0;
+			this.y1 = y1;
+		}
+
+		/** Labels the stripe */
+		@Override
+		protected void compute( ) {
+			final int W = plot.getWidth( );
+			int[] prev = new int[ W ];
+			int[] cur = new int[ W ];
+
+			// start small, the label arrays grow with the number of labels
+			labels = 0;
+			parent = new int[ 256 ];
+			area = new int[ 256 ];
+			perimeter = new int[ 256 ];
+			corners = new int[ 256 ];
+
+			for( int y = y0; y < y1; y++ ) {
+				for( int x = 0; x < W; x++ ) {
+					final int c = plot.index( x, y );
+					final char p = plot.get( c );
+
+					// take the label of the western and/or northern neighbour if of the
+					// same type, or use a new one
+					int l = -1;
+					if( plot.get( plot.move( c, CharGrid.WEST ) ) == p ) l = cur[x - 1];
+					if( y > y0 && plot.get( plot.move( c, CharGrid.NORTH ) ) == p ) l = l < 0 ? prev[x] : union( parent, l, prev[x] );
+					if( l < 0 ) l = newLabel( );
+					cur[x] = l;
+
+					// add the plant to the statistics of its label
+					area[l]++;
+					for( int d = 0; d < 4; d++ ) if( plot.get( plot.move( c, d ) ) != p ) perimeter[l]++;
+					corners[l] += countCorners( plot, c );
+				}
+
+				if( y == y0 ) first = cur.clone( );
+				final int[] t = prev;
+				prev = cur;
+				cur = t;
+			}
+			last = y1 > y0 ? prev : new int[ W ];
+			if( first == null ) first = last;
+
+			// point every label directly at its root
+			for( int l = 0; l < labels; l++ ) parent[l] = find( parent, l );
+		}
+
+		/** @return A new label */
+		private int newLabel( ) {
+			if( labels == parent.length ) {
+				parent = Arrays.copyOf( parent, labels * 2 );
+				area = Arrays.copyOf( area, labels * 2 );
+				perimeter = Arrays.copyOf( perimeter, labels * 2 );
+				corners = Arrays.copyOf( corners, labels * 2 );
+			}
+			parent[labels] = labels;
+			return labels++;
+		}
+	}
+}
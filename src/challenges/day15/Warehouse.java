@@ -3,9 +3,7 @@ package challenges.day15;
 import java.util.ArrayList;
 import java.util.List;
 
-import aocutil.geometry.Coord2D;
-import aocutil.geometry.Direction;
-import aocutil.grid.CoordGrid;
+import challenges.grid.CharGrid;
 
 /**
  * Models boxes in a warehouse and simulates the movements of a logistics robot
@@ -13,25 +11,24 @@ import aocutil.grid.CoordGrid;
  */
 public class Warehouse {
 	/** The layout of the warehouse */
-	protected final CoordGrid<Character> map;
+	protected final CharGrid map;
 	
-	/** The robot's current position */
-	protected Coord2D robot;
+	/** The cell index of the robot's current position */
+	protected int robot;
 	
-	/** The array of robot moves */
-	protected final Direction[] moves;
+	/** The array of robot moves, given as direction indices */
+	protected final int[] moves;
 
 	/**
 	 * Creates a new WarehouseSize2 object
 	 * 
 	 * @param layout The grid that describes the warehouse layout
-	 * @param moves The set of moves the robot is to perform
-	 * @param robot The initial position of the robot
+	 * @param moves The set of moves the robot is to perform, as direction indices
+	 * @param robot The cell index of the initial position of the robot
 	 */
-	public Warehouse( final CoordGrid<Character> layout, final Direction[] moves, final Coord2D robot ) {
+	public Warehouse( final CharGrid layout, final int[] moves, final int robot ) {
 		this.map = layout.copy( );
-		this.moves = new Direction[ moves.length ];
-		for( int i = 0; i < moves.length; i++ ) this.moves[i] = moves[i];
+		this.moves = moves.clone( );
 		this.robot = robot;
 	}
 	
@@ -54,16 +51,13 @@ public class Warehouse {
 		// remove new line from input araay and process instruction string into
 		// array of moves
 		in.remove( in.size( ) - 1	);
-		final Direction[] moves = new Direction[ m.length( ) ];
-		for( int i = 0; i < m.length( ); i++ ) moves[i] = Direction.fromSymbol( m.charAt( i ) );
+		final int[] moves = new int[ m.length( ) ];
+		for( int i = 0; i < m.length( ); i++ ) moves[i] = CharGrid.direction( m.charAt( i ) );
 
 		// process the remainder of the input to produce the warehouse layout
-		final CoordGrid<Character> map = CoordGrid.fromCharGrid( in, '.' );
-		Coord2D robot = null;
-		for( final Coord2D r : map.find( '@' ) ) {
-			robot = r;
-			map.unset( r );
-		}
+		final CharGrid map = CharGrid.fromStrings( in );
+		final int robot = map.find( '@' );
+		map.set( robot, '.' );
 		
 		// finally create and return the warehouse object
 		return new Warehouse( map, moves, robot );
@@ -79,22 +73,25 @@ public class Warehouse {
 		// process all moves
 		for( int i = 0; i < moves.length; i++ ) {
 			// get direction, determine next position and check what is there now
-			final Direction d = moves[i];
-			final Coord2D moveTo = robot.move( d, 1 );
+			final int d = map.offset( moves[i] );
+			final int moveTo = robot + d;
 
 			// check if we can move to free space or push a box, possibly moving
 			// multiple boxes that may be behind it. First count number of boxes to
 			// push, if any.
 			int boxes = 0;
-			while( map.get( robot.move( d, 1 + boxes ) ) == 'O' ) boxes++;
+			while( map.get( robot + d * (1 + boxes) ) == 'O' ) boxes++;
 			
 			// then check if there is free spaces to move into, possibly behind all
 			// pushable boxes
-			if( map.get( robot.move( d, boxes + 1 ) ) == '#' ) continue;
+			if( map.get( robot + d * (boxes + 1) ) == '#' ) continue;
 			
 			// yes, move all boxes by simply adding one after the last and removing
 			// the one we start the push at (if any)
-			if( boxes > 0 ) map.set( robot.move( d, boxes + 1 ), map.unset( moveTo ) );
+			if( boxes > 0 ) {
+				map.set( robot + d * (boxes + 1), 'O' );
+				map.set( moveTo, '.' );
+			}
 			
 			// finally move the robot itself
 			robot = moveTo;
@@ -109,7 +106,7 @@ public class Warehouse {
 	 */
 	protected long countBoxes( ) {
 		long sum = 0;
-		for( final Coord2D c : map.find( 'O' ) ) sum += 100 * c.y + c.x;
+		for( final int c : map.findAll( 'O' ) ) sum += 100 * map.getY( c ) + map.getX( c );
 		return sum;
 	}
 	
@@ -122,9 +119,9 @@ public class Warehouse {
 		final StringBuilder sb = new StringBuilder( );
 		map.set( robot, '@' );
 		sb.append( map.toString( ) );
-		map.unset( robot );
+		map.set( robot, '.' );
 		sb.append( "\n\n" );
-		for( final Direction d : moves ) sb.append( d.toSymbol( ) );
+		for( final int d : moves ) sb.append( CharGrid.symbol( d ) );
 		return sb.toString( );
 	}
 }
@@ -2,9 +2,7 @@ package challenges.day15;
 
 import java.util.List;
 
-import aocutil.geometry.Coord2D;
-import aocutil.geometry.Direction;
-import aocutil.grid.CoordGrid;
+import challenges.grid.CharGrid;
 
 /**
  * Another Warehouse, but this time it is twice as wide and all walls and boxes
@@ -16,10 +14,10 @@ public class WarehouseSize2 extends Warehouse {
 	 * Creates a new WarehouseSize2 object
 	 * 
 	 * @param layout The grid that describes the warehouse layout
-	 * @param moves The set of moves the robot is to perform
-	 * @param robot The initial position of the robot
+	 * @param moves The set of moves the robot is to perform, as direction indices
+	 * @param robot The cell index of the initial position of the robot
 	 */
-	public WarehouseSize2( CoordGrid<Character> layout, Direction[] moves, Coord2D robot ) {
+	public WarehouseSize2( CharGrid layout, int[] moves, int robot ) {
 		super( layout, moves, robot );
 	}
 
@@ -36,21 +34,24 @@ public class WarehouseSize2 extends Warehouse {
 		final Warehouse w = Warehouse.fromStringList( input );
 		
 		// and expand its layout into a Size2 warehouse type
-		final CoordGrid<Character> newmap = new CoordGrid<Character>( '.' );
-		for( final Coord2D c : w.map.getKeys( ) ) {
-			final Coord2D nc = new Coord2D( c.x * 2, c.y );
-			final char ch = w.map.get( c );
-			if( ch == '#' ) {
-				newmap.set( nc, '#' );
-				newmap.set( nc.move( 1, 0 ), '#' );
-			} else if( ch == 'O' ) {
-				newmap.set( nc, '[' );
-				newmap.set( nc.move( 1, 0 ), ']' );
-			} else throw new IllegalArgumentException( "Invalid character '" + ch + "' in input at " + c );
+		final CharGrid newmap = new CharGrid( w.map.getWidth( ) * 2, w.map.getHeight( ), '.' );
+		for( int y = 0; y < w.map.getHeight( ); y++ ) {
+			for( int x = 0; x < w.map.getWidth( ); x++ ) {
+				final int nc = newmap.index( x * 2, y );
+				final char ch = w.map.get( x, y );
+				if( ch == '#' ) {
+					newmap.set( nc, '#' );
+					newmap.set( nc + 1, '#' );
+				} else if( ch == 'O' ) {
+					newmap.set( nc, '[' );
+					newmap.set( nc + 1, ']' );
+				} else if( ch != '.' ) throw new IllegalArgumentException( "Invalid character '" + ch + "' in input at (" + x + "," + y + ")" );
+			}
 		}
 		
 		// then create and return the Size2 warehouse object
-		return new WarehouseSize2( newmap, w.moves, new Coord2D( w.robot.x * 2, w.robot.y ) );
+		final int robot = newmap.index( w.map.getX( w.robot ) * 2, w.map.getY( w.robot ) );
+		return new WarehouseSize2( newmap, w.moves, robot );
 	}
 	
 	/**
@@ -64,8 +65,8 @@ public class WarehouseSize2 extends Warehouse {
 		// process all moves
 		for( int i = 0; i < moves.length; i++ ) {
 			// get direction, determine next position and check what is there now
-			final Direction d = moves[i];
-			final Coord2D moveTo = robot.move( d, 1 );
+			final int d = moves[i];
+			final int moveTo = map.move( robot, d );
 			final char moveCh = map.get( moveTo );
 			
 			// nothing? simply move the robot
@@ -74,7 +75,7 @@ public class WarehouseSize2 extends Warehouse {
 			} else if( moveCh == '[' || moveCh == ']' ) {
 				// there is a box here, see if the robot can push it (check via its
 				// leftmost coordinate)
-				final Coord2D bcoord = moveCh == '[' ? moveTo : moveTo.move( -1, 0 );
+				final int bcoord = moveCh == '[' ? moveTo : moveTo - 1;
 				if( canPush( bcoord, d ) ) {
 					// yes! push the box and all boxes behind it, then move the robot
 					push( bcoord, d );
@@ -96,19 +97,19 @@ public class WarehouseSize2 extends Warehouse {
 	 * 
 	 * @param bcoord The leftmost coordinate of the box we would like to test for
 	 *   pushing
-	 * @param d The direction in which we want to push
+	 * @param d The direction index in which we want to push
 	 * @return True iff this box, and all boxes behind it, can be moved by
 	 *   pushing into the specified direction
 	 */
-	private boolean canPush( final Coord2D bcoord, final Direction d ) {
+	private boolean canPush( final int bcoord, final int d ) {
 		// check for any boxes that may be after me
 		switch( d ) {
-			case North:
-			case South: {
+			case CharGrid.NORTH:
+			case CharGrid.SOUTH: {
 				// check the two coordinates at which a box may be behind me
-				for( final Coord2D moveTo : new Coord2D[] { bcoord.move( d, 1 ), bcoord.move( d, 1 ).move( 1, 0 ) } ) {
+				for( final int moveTo : new int[] { map.move( bcoord, d ), map.move( bcoord, d ) + 1 } ) {
 					final char moveCh = map.get( moveTo );
-					final boolean canmove = moveCh == '.' || (moveCh == ']' && canPush( moveTo.move( -1, 0 ), d ) ) || (moveCh == '[' && canPush( moveTo, d ) );
+					final boolean canmove = moveCh == '.' || (moveCh == ']' && canPush( moveTo - 1, d ) ) || (moveCh == '[' && canPush( moveTo, d ) );
 					
 					// if we cannot move the left box, no need to try the right box
 					if( !canmove ) return false;
@@ -116,12 +117,12 @@ public class WarehouseSize2 extends Warehouse {
 				return true;
 			}
 				
-			case West:
-			case East: {
+			case CharGrid.WEST:
+			case CharGrid.EAST: {
 				// check immediate left or right from me
-				final Coord2D moveTo = bcoord.move( d, d == Direction.West ? 1 : 2 );
+				final int moveTo = bcoord + map.offset( d ) * (d == CharGrid.WEST ? 1 : 2);
 				final char moveCh = map.get( moveTo );
-				return moveCh == '.' || (moveCh == ']' && canPush( moveTo.move( -1, 0 ), d ) || (moveCh == '[' && canPush( moveTo, d ) ) );
+				return moveCh == '.' || (moveCh == ']' && canPush( moveTo - 1, d ) || (moveCh == '[' && canPush( moveTo, d ) ) );
 			}
 			
 			default: throw new IllegalArgumentException( "Invalid direction: " + d );					
@@ -132,36 +133,36 @@ public class WarehouseSize2 extends Warehouse {
 	 * Pushes this box, identified through its left or right coordinate, in the
 	 * given direction. Will first push box after it before moving itself.
 	 * 
-	 * @param bcoord The coordinate used to identify the box
-	 * @param d
+	 * @param bcoord The cell index used to identify the box
+	 * @param d The direction index to push in
 	 */
-	private void push( final Coord2D bcoord, final Direction d ) {
+	private void push( final int bcoord, final int d ) {
 		// correct box coordinate here, easier than to do it in North & South push moves
-		final Coord2D bc = map.get( bcoord ) == ']' ? bcoord.move( -1, 0 ) : bcoord;
+		final int bc = map.get( bcoord ) == ']' ? bcoord - 1 : bcoord;
 
 		// check if there is free space after the box, if not we should push the
 		// box there first. If a wall is encountered, the move is invalid
 		if( map.get( bc ) == '.' ) return;
-		if( map.get( bc ) == '#' ) throw new RuntimeException( "Block cannot be pushed to " + bc + " in direction " + d + "!\n" + this );
+		if( map.get( bc ) == '#' ) throw new RuntimeException( "Block cannot be pushed to (" + map.getX( bc ) + "," + map.getY( bc ) + ") in direction " + CharGrid.symbol( d ) + "!\n" + this );
 		
 		// recursively first try and move all boxes resting on me
 		switch( d ) {
-			case North:
-			case South:
-				push( bc.move( d, 1 ), d );
-				push( bc.move( d, 1 ).move( 1, 0 ), d );
+			case CharGrid.NORTH:
+			case CharGrid.SOUTH:
+				push( map.move( bc, d ), d );
+				push( map.move( bc, d ) + 1, d );
 				break;
 
-			case West:
-			case East:
-				push( bc.move( d, d == Direction.West ? 1 : 2 ), d );
+			case CharGrid.WEST:
+			case CharGrid.EAST:
+				push( bc + map.offset( d ) * (d == CharGrid.WEST ? 1 : 2), d );
 				break;
 		}
 		
 		// all boxes behind this box were moved, now move this one
-		map.unset( bc ); map.unset( bc.move( 1, 0 ) );
-		map.set( bc.move( d, 1 ), '[' );
-		map.set( bc.move( d, 1 ).move( 1, 0 ), ']' );
+		map.set( bc, '.' ); map.set( bc + 1, '.' );
+		map.set( map.move( bc, d ), '[' );
+		map.set( map.move( bc, d ) + 1, ']' );
 	}
 	
 	/**
@@ -170,7 +171,7 @@ public class WarehouseSize2 extends Warehouse {
 	@Override
 	protected long countBoxes( ) {
 		long sum = 0;
-		for( final Coord2D c : map.find( '[' ) ) sum += 100 * c.y + c.x;
+		for( final int c : map.findAll( '[' ) ) sum += 100 * map.getY( c ) + map.getX( c );
 		return sum;
 	}
 }
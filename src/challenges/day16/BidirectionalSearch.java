@@ -0,0 +1,250 @@
+package challenges.day16;
+
+import java.util.Arrays;
+
+import challenges.grid.CharGrid;
+
+/**
+ * Bidirectional Dijkstra search over the packed reindeer states. A forward
+ * search runs from the start state and a backward search runs from all four
+ * finish states over the reversed moves, always expanding the side with the
+ * lowest key. The searches meet in the middle, such that each only has to
+ * explore about half the cost radius of a single search.
+ *
+ * To still find every lowest-cost path, the search continues until the sum of
+ * both lowest keys exceeds the best cost. At that point every state on a
+ * lowest-cost path has been settled by at least one of the searches. Every
+ * such path then contains a move from a state settled forward to a state
+ * settled backward, from which the path can be recovered by walking the
+ * predecessors of the forward search and the successors of the backward one.
+ */
+public class BidirectionalSearch extends StateSearch {
+	/** Settled flags for both search directions */
+	private static final byte FORWARD = 1, BACKWARD = 2;
+
+	/** The lowest known cost from every state to the finish */
+	protected final long[] rdist;
+
+	/** Bit mask per state of the directions of the states that follow it on a
+	 * lowest-cost path to the finish */
+	protected final byte[] succ;
+
+	/** The directions in which every state has been settled */
+	protected final byte[] settled;
+
+	/**
+	 * Creates a new bidirectional search
+	 *
+	 * @param maze The maze layout
+	 * @param start The cell index at which the reindeer starts
+	 * @param dir The direction the reindeer initially faces
+	 * @param finish The cell index of the finish
+	 */
+	public BidirectionalSearch( final CharGrid maze, final int start, final int dir, final int finish ) {
+		super( maze, start, dir, finish );
+		rdist = new long[ dist.length ];
+		succ = new byte[ dist.length ];
+		settled = new byte[ dist.length ];
+	}
+
+	/**
+	 * Runs the forward and backward searches until they have met and the lowest
+	 * cost to the finish is known
+	 *
+	 * @param allpaths True to continue until all lowest-cost paths are in the
+	 *   predecessor or successor DAGs, false to stop when the lowest cost is
+	 *   known
+	 * @return The lowest cost to reach the finish, -1 if it cannot be reached
+	 */
+	@Override
+	public long run( final boolean allpaths ) {
+		Arrays.fill( dist, Long.MAX_VALUE );
+		Arrays.fill( rdist, Long.MAX_VALUE );
+		Arrays.fill( pred, (byte)0 );
+		Arrays.fill( succ, (byte)0 );
+		Arrays.fill( settled, (byte)0 );
+		expanded = 0;
+
+		// start the forward search from the start and the backward search from
+		// every direction in which the finish can be reached
+		final IndexedHeap F = new IndexedHeap( dist.length );
+		final IndexedHeap B = new IndexedHeap( dist.length );
+		dist[start] = 0;
+		F.push( start, 0 );
+		for( int d = 0; d < 4; d++ ) {
+			rdist[ state( finish, d ) ] = 0;
+			B.push( state( finish, d ), 0 );
+		}
+
+		// keep track of the lowest cost of any path found where the searches met
+		long mu = Long.MAX_VALUE;
+		while( !F.isEmpty( ) || !B.isEmpty( ) ) {
+			final long f = F.peekKey( );
+			final long b = B.peekKey( );
+
+			// stop once no unsettled state can be on a (shorter) path. If one of
+			// the searches is exhausted, the other has settled all it can reach
+			if( mu < Long.MAX_VALUE ) {
+				if( f == Long.MAX_VALUE || b == Long.MAX_VALUE ) break;
+				if( allpaths ? f + b > mu : f + b >= mu ) break;
+			}
+
+			final long m = f <= b ? expandForward( F ) : expandBackward( B );
+			if( m < mu ) mu = m;
+		}
+
+		best = mu == Long.MAX_VALUE ? -1 : mu;
+		return best;
+	}
+
+	/**
+	 * Settles the lowest state of the forward search and relaxes its moves
+	 *
+	 * @param F The forward queue
+	 * @return The lowest cost of any path via the relaxed states that is known
+	 *   to the backward search, Long.MAX_VALUE if there is none
+	 */
+	private long expandForward( final IndexedHeap F ) {
+		final int s = F.poll( );
+		final int c = s >> 2;
+		final int d = s & 3;
+		settled[s] |= FORWARD;
+		expanded++;
+
+		// paths do not continue beyond the finish
+		if( c == finish ) return Long.MAX_VALUE;
+
+		long mu = Long.MAX_VALUE;
+		for( int t = -1; t <= 1; t++ ) {
+			final int nd = CharGrid.turn( d, t );
+			final int n = maze.move( c, nd );
+			if( maze.get( n ) != '.' ) continue;
+
+			final int ns = state( n, nd );
+			final long v = dist[s] + STEP + (t != 0 ? TURN : 0);
+			if( v < dist[ns] ) {
+				dist[ns] = v;
+				pred[ns] = (byte)(1 << d);
+				F.push( ns, v );
+			} else if( v == dist[ns] ) {
+				pred[ns] |= 1 << d;
+			}
+
+			if( rdist[ns] != Long.MAX_VALUE ) mu = Math.min( mu, v + rdist[ns] );
+		}
+		return mu;
+	}
+
+	/**
+	 * Settles the lowest state of the backward search and relaxes all moves
+	 * that lead into it
+	 *
+	 * @param B The backward queue
+	 * @return The lowest cost of any path via the relaxed states that is known
+	 *   to the forward search, Long.MAX_VALUE if there is none
+	 */
+	private long expandBackward( final IndexedHeap B ) {
+		final int s = B.poll( );
+		final int nd = s & 3;
+		settled[s] |= BACKWARD;
+		expanded++;
+
+		// the state was entered by a step in its direction, possibly after a
+		// turn. Paths do not continue beyond the finish, so do not step back to
+		// it
+		final int c = (s >> 2) - maze.offset( nd );
+		if( maze.get( c ) != '.' || c == finish ) return Long.MAX_VALUE;
+
+		long mu = Long.MAX_VALUE;
+		for( int t = -1; t <= 1; t++ ) {
+			final int ps = state( c, CharGrid.turn( nd, t ) );
+			final long v = rdist[s] + STEP + (t != 0 ? TURN : 0);
+			if( v < rdist[ps] ) {
+				rdist[ps] = v;
+				succ[ps] = (byte)(1 << nd);
+				B.push( ps, v );
+			} else if( v == rdist[ps] ) {
+				succ[ps] |= 1 << nd;
+			}
+
+			if( dist[ps] != Long.MAX_VALUE ) mu = Math.min( mu, v + dist[ps] );
+		}
+		return mu;
+	}
+
+	/**
+	 * Counts the unique tiles that are part of at least one lowest-cost path.
+	 * First finds all moves where a lowest-cost path crosses from the forward
+	 * to the backward search, then walks back to the start and on to the
+	 * finish from these. Requires the search to have been run with allpaths
+	 * set
+	 *
+	 * @return The number of tiles on lowest-cost paths
+	 */
+	@Override
+	public int countTiles( ) {
+		if( best < 0 ) return 0;
+
+		final boolean[] seenF = new boolean[ dist.length ];
+		final boolean[] seenB = new boolean[ dist.length ];
+		final int[] stackF = new int[ dist.length ];
+		final int[] stackB = new int[ dist.length ];
+		int spF = 0;
+		int spB = 0;
+
+		for( int s = 0; s < dist.length; s++ ) {
+			// states settled by both searches that are on a lowest-cost path
+			if( settled[s] == (FORWARD | BACKWARD) && dist[s] + rdist[s] == best ) {
+				if( !seenF[s] ) { seenF[s] = true; stackF[spF++] = s; }
+				if( !seenB[s] ) { seenB[s] = true; stackB[spB++] = s; }
+			}
+
+			// moves from a forward settled state to a backward settled state
+			if( (settled[s] & FORWARD) == 0 || (s >> 2) == finish ) continue;
+			for( int t = -1; t <= 1; t++ ) {
+				final int nd = CharGrid.turn( s & 3, t );
+				final int ns = state( maze.move( s >> 2, nd ), nd );
+				if( (settled[ns] & BACKWARD) == 0 ) continue;
+				if( dist[s] + STEP + (t != 0 ? TURN : 0) + rdist[ns] != best ) continue;
+				if( !seenF[s] ) { seenF[s] = true; stackF[spF++] = s; }
+				if( !seenB[ns] ) { seenB[ns] = true; stackB[spB++] = ns; }
+			}
+		}
+
+		// walk from the crossings back to the start and forward to the finish
+		final boolean[] tiles = new boolean[ maze.size( ) ];
+		return walkBack( stackF, spF, seenF, tiles ) + walkForward( stackB, spB, seenB, tiles );
+	}
+
+	/**
+	 * Walks the successor DAG of the backward search from the given states
+	 * towards the finish, marking the tiles of all states on the way
+	 *
+	 * @param stack The stack of states to walk from, it must be large enough
+	 *   to hold every state once
+	 * @param sp The number of states on the stack
+	 * @param seen The states that have already been put on the stack
+	 * @param tiles The tiles that have already been marked
+	 * @return The number of newly marked tiles
+	 */
+	protected int walkForward( final int[] stack, int sp, final boolean[] seen, final boolean[] tiles ) {
+		int count = 0;
+		while( sp > 0 ) {
+			final int s = stack[--sp];
+			final int c = s >> 2;
+			if( !tiles[c] ) {
+				tiles[c] = true;
+				count++;
+			}
+
+			for( int d = 0; d < 4; d++ ) {
+				if( (succ[s] & (1 << d)) == 0 ) continue;
+				final int ns = state( maze.move( c, d ), d );
+				if( seen[ns] ) continue;
+				seen[ns] = true;
+				stack[sp++] = ns;
+			}
+		}
+		return count;
+	}
+}
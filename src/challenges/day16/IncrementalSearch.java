@@ -0,0 +1,249 @@
+package challenges.day16;
+
+import java.util.Arrays;
+
+import challenges.grid.CharGrid;
+
+/**
+ * Incremental search over the packed reindeer states, based on Lifelong
+ * Planning A* without a heuristic. Besides the cost g of every state, the
+ * search keeps the one-step lookahead rhs, which is the lowest cost of
+ * reaching the state through any of its predecessors. States for which both
+ * differ are inconsistent and are kept in the queue, ordered by the lower of
+ * both values.
+ *
+ * When a tile of the maze is changed into a wall or opened up, only the states
+ * on and next to that tile change their lookahead. Solving again then only
+ * processes the states whose cost is affected by the change, instead of
+ * searching the whole maze again. The search stops as soon as all states that
+ * can be part of a lowest-cost path to the finish are consistent, which allows
+ * the best seats to be counted by walking back over the states for which the
+ * costs add up.
+ */
+public class IncrementalSearch {
+	/** Value of unreachable states */
+	private static final long INF = Long.MAX_VALUE;
+
+	/** The maze layout, open tiles are '.' */
+	protected final CharGrid maze;
+
+	/** The packed starting state of the reindeer */
+	protected final int start;
+
+	/** The cell index of the finish */
+	protected final int finish;
+
+	/** The current cost of every state */
+	protected final long[] g;
+
+	/** The one-step lookahead cost of every state */
+	protected final long[] rhs;
+
+	/** The queue of inconsistent states */
+	protected final IndexedHeap Q;
+
+	/** Stamps of the states and tiles visited when counting tiles, to avoid
+	 * clearing them for every count */
+	private final int[] seen, covered;
+
+	/** The current stamp */
+	private int stamp;
+
+	/** The stack used when counting tiles */
+	private final int[] stack;
+
+	/** The lowest cost to reach the finish, -1 if not reachable */
+	protected long best;
+
+	/** The number of states expanded by the last solve */
+	protected long expanded;
+
+	/**
+	 * Creates a new incremental search
+	 *
+	 * @param maze The maze layout, which is expected to change between calls
+	 *   to solve. Every changed tile must be reported by calling changed
+	 * @param start The cell index at which the reindeer starts
+	 * @param dir The direction the reindeer initially faces
+	 * @param finish The cell index of the finish
+	 */
+	public IncrementalSearch( final CharGrid maze, final int start, final int dir, final int finish ) {
+		this.maze = maze;
+		this.start = StateSearch.state( start, dir );
+		this.finish = finish;
+
+		g = new long[ maze.size( ) * 4 ];
+		rhs = new long[ g.length ];
+		Arrays.fill( g, INF );
+		Arrays.fill( rhs, INF );
+		Q = new IndexedHeap( g.length );
+
+		seen = new int[ g.length ];
+		covered = new int[ maze.size( ) ];
+		stack = new int[ g.length ];
+		stamp = 0;
+
+		// the start state is the only one with a known cost initially
+		rhs[ this.start ] = 0;
+		Q.push( this.start, 0 );
+		best = -1;
+	}
+
+	/** @return The number of states expanded by the last solve */
+	public long getExpanded( ) {
+		return expanded;
+	}
+
+	/**
+	 * Updates the search after a tile of the maze has been changed from an open
+	 * tile into a wall or vice versa. This affects the states on the tile and
+	 * the states that are entered by a step from the tile
+	 *
+	 * @param cell The cell index of the changed tile
+	 */
+	public void changed( final int cell ) {
+		for( int d = 0; d < 4; d++ ) {
+			update( StateSearch.state( cell, d ) );
+			final int n = maze.move( cell, d );
+			if( maze.isInside( n ) ) update( StateSearch.state( n, d ) );
+		}
+	}
+
+	/**
+	 * Brings all states that can be on a lowest-cost path to the finish up to
+	 * date with the current maze layout
+	 *
+	 * @return The lowest cost to reach the finish, -1 if it cannot be reached
+	 */
+	public long solve( ) {
+		expanded = 0;
+		while( !Q.isEmpty( ) && Q.peekKey( ) <= bound( ) ) {
+			final int s = Q.poll( );
+			expanded++;
+
+			if( g[s] > rhs[s] ) {
+				// the state got cheaper, adopt its lookahead cost
+				g[s] = rhs[s];
+			} else {
+				// the state got more expensive, reset it and queue it again
+				g[s] = INF;
+				update( s );
+			}
+
+			// either way, the lookahead of its successors changes
+			final int c = s >> 2;
+			if( c == finish ) continue;
+			for( int t = -1; t <= 1; t++ ) {
+				final int nd = CharGrid.turn( s & 3, t );
+				final int n = maze.move( c, nd );
+				if( maze.get( n ) == '.' ) update( StateSearch.state( n, nd ) );
+			}
+		}
+
+		final long b = bound( );
+		best = b == INF ? -1 : b;
+		return best;
+	}
+
+	/**
+	 * Determines the cost up to which the search must be consistent, which is
+	 * the lowest cost of the finish states. A finish state that is not yet
+	 * consistent counts with the higher of its cost and lookahead
+	 *
+	 * @return The bound
+	 */
+	private long bound( ) {
+		long b = INF;
+		for( int d = 0; d < 4; d++ ) {
+			final int s = StateSearch.state( finish, d );
+			b = Math.min( b, Math.max( g[s], rhs[s] ) );
+		}
+		return b;
+	}
+
+	/**
+	 * Recomputes the lookahead of a state and (re)queues or removes it from the
+	 * queue depending on whether it is consistent
+	 *
+	 * @param s The state
+	 */
+	private void update( final int s ) {
+		if( s != start ) rhs[s] = lookahead( s );
+		if( g[s] != rhs[s] ) Q.push( s, Math.min( g[s], rhs[s] ) );
+		else Q.remove( s );
+	}
+
+	/**
+	 * Determines the lowest cost of reaching a state through any of its
+	 * predecessors. These are the states on the tile one step back from it
+	 * that face the same direction or can turn into it
+	 *
+	 * @param s The state
+	 * @return The lookahead cost
+	 */
+	private long lookahead( final int s ) {
+		final int c = s >> 2;
+		final int d = s & 3;
+		if( maze.get( c ) != '.' ) return INF;
+
+		// paths do not continue beyond the finish
+		final int p = c - maze.offset( d );
+		if( maze.get( p ) != '.' || p == finish ) return INF;
+
+		long min = INF;
+		for( int t = -1; t <= 1; t++ ) {
+			final int ps = StateSearch.state( p, CharGrid.turn( d, t ) );
+			if( g[ps] == INF ) continue;
+			min = Math.min( min, g[ps] + StateSearch.STEP + (t != 0 ? StateSearch.TURN : 0) );
+		}
+		return min;
+	}
+
+	/**
+	 * Counts the unique tiles that are part of at least one lowest-cost path by
+	 * walking back from the finish over all predecessors whose cost plus the
+	 * cost of the move equals the cost of the state. Only visits the states on
+	 * lowest-cost paths. Requires solve to have been called after the last
+	 * change
+	 *
+	 * @return The number of tiles on lowest-cost paths
+	 */
+	public int countTiles( ) {
+		if( best < 0 ) return 0;
+
+		stamp++;
+		int sp = 0;
+		int count = 0;
+
+		// start from every finish state that is reached at the lowest cost
+		for( int d = 0; d < 4; d++ ) {
+			final int s = StateSearch.state( finish, d );
+			if( g[s] != best ) continue;
+			seen[s] = stamp;
+			stack[sp++] = s;
+		}
+
+		while( sp > 0 ) {
+			final int s = stack[--sp];
+			final int c = s >> 2;
+			if( covered[c] != stamp ) {
+				covered[c] = stamp;
+				count++;
+			}
+			if( s == start ) continue;
+
+			// find the predecessors through which the state is reached at its cost
+			final int p = c - maze.offset( s & 3 );
+			if( maze.get( p ) != '.' || p == finish ) continue;
+			for( int t = -1; t <= 1; t++ ) {
+				final int ps = StateSearch.state( p, CharGrid.turn( s & 3, t ) );
+				if( g[ps] == INF || seen[ps] == stamp ) continue;
+				if( g[ps] + StateSearch.STEP + (t != 0 ? StateSearch.TURN : 0) != g[s] ) continue;
+				seen[ps] = stamp;
+				stack[sp++] = ps;
+			}
+		}
+
+		return count;
+	}
+}
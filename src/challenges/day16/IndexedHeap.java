@@ -0,0 +1,160 @@
+package challenges.day16;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of integer IDs in a fixed range that are ordered by a long
+ * key. The heap keeps track of the position of every ID in it, so that the
+ * key of an ID that is already queued can be decreased in place instead of
+ * queueing a duplicate entry. No objects are created once the heap has been
+ * allocated.
+ */
+public class IndexedHeap {
+	/** The IDs in heap order */
+	protected final int[] heap;
+
+	/** The position of every ID in the heap array, -1 if not queued */
+	protected final int[] pos;
+
+	/** The key of every ID */
+	protected final long[] key;
+
+	/** The number of IDs currently in the heap */
+	protected int size;
+
+	/**
+	 * Creates a new, empty heap
+	 *
+	 * @param capacity The number of IDs, the heap accepts IDs 0 to capacity-1
+	 */
+	public IndexedHeap( final int capacity ) {
+		heap = new int[ capacity ];
+		pos = new int[ capacity ];
+		key = new long[ capacity ];
+		Arrays.fill( pos, -1 );
+		size = 0;
+	}
+
+	/** @return True if there are no IDs in the heap */
+	public boolean isEmpty( ) {
+		return size == 0;
+	}
+
+	/** @return The number of IDs in the heap */
+	public int size( ) {
+		return size;
+	}
+
+	/**
+	 * @param id The ID to test
+	 * @return True iff the ID is currently queued
+	 */
+	public boolean contains( final int id ) {
+		return pos[id] >= 0;
+	}
+
+	/**
+	 * Adds an ID to the heap or updates its key if it is already queued. The key
+	 * may both be decreased and increased
+	 *
+	 * @param id The ID to queue
+	 * @param k The key of the ID
+	 */
+	public void push( final int id, final long k ) {
+		if( pos[id] < 0 ) {
+			// new entry, add it at the bottom of the heap
+			heap[size] = id;
+			pos[id] = size++;
+			key[id] = k;
+			up( pos[id] );
+		} else {
+			// existing entry, restore heap order from its current position
+			final long old = key[id];
+			key[id] = k;
+			if( k < old ) up( pos[id] ); else down( pos[id] );
+		}
+	}
+
+	/** @return The smallest key in the heap, Long.MAX_VALUE if it is empty */
+	public long peekKey( ) {
+		return size == 0 ? Long.MAX_VALUE : key[ heap[0] ];
+	}
+
+	/**
+	 * Removes the ID with the smallest key from the heap
+	 *
+	 * @return The removed ID
+	 */
+	public int poll( ) {
+		if( size == 0 ) throw new RuntimeException( "Heap is empty" );
+		final int id = heap[0];
+		remove( id );
+		return id;
+	}
+
+	/**
+	 * Removes an ID from the heap, if it is queued
+	 *
+	 * @param id The ID to remove
+	 */
+	public void remove( final int id ) {
+		final int p = pos[id];
+		if( p < 0 ) return;
+		pos[id] = -1;
+
+		// move the last entry into the freed position and restore heap order
+		if( --size == p ) return;
+		heap[p] = heap[size];
+		pos[ heap[p] ] = p;
+		up( p );
+		down( pos[ heap[p] ] );
+	}
+
+	/** Removes all IDs from the heap */
+	public void clear( ) {
+		for( int i = 0; i < size; i++ ) pos[ heap[i] ] = -1;
+		size = 0;
+	}
+
+	/**
+	 * Moves the entry at the given heap position up until its parent is no
+	 * longer larger than it
+	 *
+	 * @param p The heap position
+	 */
+	private void up( int p ) {
+		final int id = heap[p];
+		final long k = key[id];
+		while( p > 0 ) {
+			final int parent = (p - 1) >> 1;
+			if( key[ heap[parent] ] <= k ) break;
+			heap[p] = heap[parent];
+			pos[ heap[p] ] = p;
+			p = parent;
+		}
+		heap[p] = id;
+		pos[id] = p;
+	}
+
+	/**
+	 * Moves the entry at the given heap position down until none of its
+	 * children is smaller than it
+	 *
+	 * @param p The heap position
+	 */
+	private void down( int p ) {
+		final int id = heap[p];
+		final long k = key[id];
+		while( true ) {
+			int child = 2 * p + 1;
+			if( child >= size ) break;
+			if( child + 1 < size && key[ heap[child + 1] ] < key[ heap[child] ] ) child++;
+			if( key[ heap[child] ] >= k ) break;
+			heap[p] = heap[child];
+			pos[ heap[p] ] = p;
+			p = child;
+		}
+		heap[p] = id;
+		pos[id] = p;
+	}
+}
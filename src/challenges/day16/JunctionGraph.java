@@ -0,0 +1,298 @@
+package challenges.day16;
+
+import java.util.Arrays;
+
+import challenges.grid.CharGrid;
+
+/**
+ * Compressed representation of a Reindeer Maze in which every corridor is
+ * collapsed into a single weighted edge between two junctions. Junctions are
+ * all open tiles that do not have exactly two open neighbours, plus the start
+ * and finish tiles. Within a corridor the reindeer has only one way forward,
+ * so the cost of traversing it, including the turns in its bends, is fixed.
+ *
+ * The edges are directed and identified by the junction and direction in which
+ * they leave it. Every edge holds the direction in which it arrives at its
+ * target junction, its total cost and the tiles it covers, such that the
+ * lowest-cost paths found on the graph can be expanded into maze tiles again.
+ *
+ * Search states are packed as junction * 4 + direction, where the direction is
+ * the one the reindeer faces when at that junction, exactly as in StateSearch.
+ */
+public class JunctionGraph {
+	/** The turns to try when following a corridor: ahead, left and right */
+	private static final int[] AHEAD = { 0, -1, 1 };
+
+	/** The maze layout, open tiles are '.' */
+	protected final CharGrid maze;
+
+	/** The cell index of every junction */
+	protected final int[] cells;
+
+	/** The junction index of every maze cell, -1 if it is not a junction */
+	protected final int[] junction;
+
+	/** The packed start state */
+	protected final int start;
+
+	/** The junction index of the finish */
+	protected final int finish;
+
+	/** The edge that leaves a junction in a given direction, indexed by packed
+	 * state. -1 if there is none */
+	protected final int[] out;
+
+	/** The edge that arrives at a junction facing a given direction, indexed by
+	 * packed state. -1 if there is none */
+	protected final int[] in;
+
+	/** The junction every edge starts from and the direction it leaves it */
+	protected final int[] edgeFrom, edgeDir;
+
+	/** The target state of every edge, i.e., junction and arrival direction */
+	protected final int[] edgeTo;
+
+	/** The cost of traversing every edge */
+	protected final long[] edgeCost;
+
+	/** The tiles covered by each edge, excluding its junctions. The tiles of
+	 * edge e are tiles[ tileStart[e] ] to tiles[ tileStart[e+1] - 1 ] */
+	protected final int[] tiles, tileStart;
+
+	/** The number of edges */
+	protected final int edges;
+
+	/** The lowest known cost to reach every state */
+	protected final long[] dist;
+
+	/** Bit mask per state of the directions of the states that precede it on
+	 * a lowest-cost path */
+	protected final byte[] pred;
+
+	/** The lowest cost to reach the finish, -1 if not (yet) known */
+	protected long best;
+
+	/** The number of states expanded by the last run */
+	protected long expanded;
+
+	/**
+	 * Builds the junction graph of the maze
+	 *
+	 * @param maze The maze layout
+	 * @param start The cell index at which the reindeer starts
+	 * @param dir The direction the reindeer initially faces
+	 * @param finish The cell index of the finish
+	 */
+	public JunctionGraph( final CharGrid maze, final int start, final int dir, final int finish ) {
+		this.maze = maze;
+
+		// find all junctions, counting the open tiles on the go
+		junction = new int[ maze.size( ) ];
+		Arrays.fill( junction, -1 );
+		int J = 0;
+		int open = 0;
+		for( int y = 0; y < maze.getHeight( ); y++ ) {
+			for( int x = 0; x < maze.getWidth( ); x++ ) {
+				final int c = maze.index( x, y );
+				if( maze.get( c ) != '.' ) continue;
+				open++;
+				if( c == start || c == finish || degree( c ) != 2 ) junction[c] = J++;
+			}
+		}
+		cells = new int[ J ];
+		for( int c = 0; c < junction.length; c++ )
+			if( junction[c] >= 0 ) cells[ junction[c] ] = c;
+		this.start = StateSearch.state( junction[start], dir );
+		this.finish = junction[finish];
+
+		// then follow every corridor leaving a junction until the next junction.
+		// Every open tile is covered by at most two edges, one in each direction
+		out = new int[ J * 4 ];
+		in = new int[ J * 4 ];
+		Arrays.fill( out, -1 );
+		Arrays.fill( in, -1 );
+		edgeFrom = new int[ J * 4 ];
+		edgeDir = new int[ J * 4 ];
+		edgeTo = new int[ J * 4 ];
+		edgeCost = new long[ J * 4 ];
+		tileStart = new int[ J * 4 + 1 ];
+		tiles = new int[ open * 2 ];
+		int E = 0;
+		int T = 0;
+		for( int j = 0; j < J; j++ ) {
+			for( int d = 0; d < 4; d++ ) {
+				int c = maze.move( cells[j], d );
+				if( maze.get( c ) != '.' ) continue;
+
+				// walk the corridor, taking the only way forward at every tile
+				int cd = d;
+				long cost = StateSearch.STEP;
+				tileStart[E] = T;
+				while( junction[c] < 0 ) {
+					tiles[T++] = c;
+					for( final int t : AHEAD ) {
+						final int nd = CharGrid.turn( cd, t );
+						if( maze.get( maze.move( c, nd ) ) != '.' ) continue;
+						cost += StateSearch.STEP + (t != 0 ? StateSearch.TURN : 0);
+						cd = nd;
+						break;
+					}
+					c = maze.move( c, cd );
+				}
+
+				// store the edge
+				edgeFrom[E] = j;
+				edgeDir[E] = d;
+				edgeTo[E] = StateSearch.state( junction[c], cd );
+				edgeCost[E] = cost;
+				out[ StateSearch.state( j, d ) ] = E;
+				in[ edgeTo[E] ] = E;
+				E++;
+			}
+		}
+		tileStart[E] = T;
+		edges = E;
+
+		dist = new long[ J * 4 ];
+		pred = new byte[ J * 4 ];
+		best = -1;
+	}
+
+	/**
+	 * Counts the open neighbours of a tile
+	 *
+	 * @param c The cell index of the tile
+	 * @return The number of open neighbouring tiles
+	 */
+	private int degree( final int c ) {
+		int deg = 0;
+		for( int d = 0; d < 4; d++ )
+			if( maze.get( maze.move( c, d ) ) == '.' ) deg++;
+		return deg;
+	}
+
+	/** @return The number of junctions in the graph */
+	public int getJunctionCount( ) {
+		return cells.length;
+	}
+
+	/** @return The number of edges in the graph */
+	public int getEdgeCount( ) {
+		return edges;
+	}
+
+	/** @return The number of states expanded by the last run */
+	public long getExpanded( ) {
+		return expanded;
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm over the junction states until the lowest cost
+	 * to the finish is known
+	 *
+	 * @param allpaths True to continue until all lowest-cost paths to the finish
+	 *   are in the predecessor DAG, false to stop at the first one
+	 * @return The lowest cost to reach the finish, -1 if it cannot be reached
+	 */
+	public long run( final boolean allpaths ) {
+		Arrays.fill( dist, Long.MAX_VALUE );
+		Arrays.fill( pred, (byte)0 );
+		best = -1;
+		expanded = 0;
+
+		final IndexedHeap Q = new IndexedHeap( dist.length );
+		dist[start] = 0;
+		Q.push( start, 0 );
+
+		while( !Q.isEmpty( ) ) {
+			// once all states at the best cost have been settled, no other state
+			// can be on a lowest-cost path
+			if( best >= 0 && Q.peekKey( ) > best ) break;
+
+			final int s = Q.poll( );
+			final int j = s >> 2;
+			final int d = s & 3;
+			expanded++;
+
+			// reached the finish? Paths do not continue beyond it
+			if( j == finish ) {
+				best = dist[s];
+				if( !allpaths ) break;
+				continue;
+			}
+
+			// follow the corridors ahead, to the left and to the right
+			for( int t = -1; t <= 1; t++ ) {
+				final int e = out[ StateSearch.state( j, CharGrid.turn( d, t ) ) ];
+				if( e < 0 ) continue;
+
+				final int ns = edgeTo[e];
+				final long v = dist[s] + edgeCost[e] + (t != 0 ? StateSearch.TURN : 0);
+				if( v < dist[ns] ) {
+					dist[ns] = v;
+					pred[ns] = (byte)(1 << d);
+					Q.push( ns, v );
+				} else if( v == dist[ns] ) {
+					pred[ns] |= 1 << d;
+				}
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Counts the unique tiles that are part of at least one lowest-cost path by
+	 * walking the predecessor DAG back from the finish and expanding the tiles
+	 * of every edge on it. Requires the search to have been run with allpaths
+	 * set
+	 *
+	 * @return The number of tiles on lowest-cost paths
+	 */
+	public int countTiles( ) {
+		if( best < 0 ) return 0;
+
+		final boolean[] seen = new boolean[ dist.length ];
+		final boolean[] covered = new boolean[ maze.size( ) ];
+		final int[] stack = new int[ dist.length ];
+		int sp = 0;
+		int count = 0;
+
+		// start from every finish state that is reached at the lowest cost
+		for( int d = 0; d < 4; d++ ) {
+			final int s = StateSearch.state( finish, d );
+			if( dist[s] != best ) continue;
+			seen[s] = true;
+			stack[sp++] = s;
+		}
+
+		// then walk back over all predecessors, marking their junction and the
+		// tiles of the edge that was used to reach them
+		while( sp > 0 ) {
+			final int s = stack[--sp];
+			final int c = cells[ s >> 2 ];
+			if( !covered[c] ) {
+				covered[c] = true;
+				count++;
+			}
+			if( pred[s] == 0 ) continue;
+
+			final int e = in[s];
+			for( int i = tileStart[e]; i < tileStart[e + 1]; i++ ) {
+				if( covered[ tiles[i] ] ) continue;
+				covered[ tiles[i] ] = true;
+				count++;
+			}
+
+			for( int d = 0; d < 4; d++ ) {
+				if( (pred[s] & (1 << d)) == 0 ) continue;
+				final int ps = StateSearch.state( edgeFrom[e], d );
+				if( seen[ps] ) continue;
+				seen[ps] = true;
+				stack[sp++] = ps;
+			}
+		}
+
+		return count;
+	}
+}
@@ -9,9 +9,7 @@ import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
 
-import aocutil.geometry.Coord2D;
-import aocutil.geometry.Direction;
-import aocutil.grid.CoordGrid;
+import challenges.grid.CharGrid;
 
 /**
  * Class that models a game of Reindeer Maze and offers methods to both solve
@@ -19,39 +17,102 @@ import aocutil.grid.CoordGrid;
  * to watch the reindeer races
  */
 public class ReindeerMaze {
+	/** The search algorithms that can be used to solve the maze */
+	public enum Search {
+		/** Explores and stores complete paths through the maze */
+		Paths,
+		
+		/** Dijkstra over packed states with a predecessor DAG of best paths */
+		Dijkstra,
+		
+		/** Dijkstra over the junctions after collapsing all corridors */
+		Junctions,
+		
+		/** A* over packed states, guided by a distance and turns estimate */
+		AStar,
+		
+		/** Dijkstra from both the start and the finish, meeting in the middle */
+		Bidirectional,
+		
+		/** Incremental search that only repairs the states affected by changes
+		 * to the maze since the previous solve */
+		Incremental
+	}
+	
 	/** The maze layout */
-	protected final CoordGrid<Character> maze;
+	protected final CharGrid maze;
 	
 	/** The starting position of the reindeer */
 	protected final ReindeerState reindeer;
 	
-	/** The position of the finish line */
-	protected final Coord2D finish;
+	/** The cell index of the finish line */
+	protected final int finish;
+	
+	/** The search algorithm used to solve the maze */
+	protected final Search search;
+	
+	/** The number of states expanded by the last search */
+	protected long expanded;
+	
+	/** The persistent search state when using the incremental search, null
+	 * otherwise */
+	protected final IncrementalSearch incremental;
 	
 	/**
 	 * Creates a new Reindeer Maze game from a grid that visualises the initial
-	 * state of the maze
+	 * state of the maze, solved using Dijkstra's algorithm
 	 * 
 	 * @param input A list of strings that describes the maze layout of walls,
 	 *   the reindeer starting position and the finish line. The list contains a
 	 *   single line per row of the maze
 	 */
 	public ReindeerMaze( final List<String> input ) {
+		this( input, Search.Dijkstra );
+	}
+	
+	/**
+	 * Creates a new Reindeer Maze game from a grid that visualises the initial
+	 * state of the maze
+	 * 
+	 * @param input A list of strings that describes the maze layout of walls,
+	 *   the reindeer starting position and the finish line. The list contains a
+	 *   single line per row of the maze
+	 * @param search The search algorithm to use for solving the maze
+	 */
+	public ReindeerMaze( final List<String> input, final Search search ) {
+		this.search = search;
+		
 		// read the maze layout from the input
-		maze = CoordGrid.fromCharGrid( input, '.' );
+		maze = CharGrid.fromStrings( input );
 
 		// extract the starting position of the reindeer and create a new initial
 		// state of it
-		Coord2D r = null;
-		for( final Coord2D c : maze.find( 'S' ) ) r = c;
-		maze.unset( r );
-		reindeer = new ReindeerState( r, Direction.East, 0 );
+		final int r = maze.find( 'S' );
+		maze.set( r, '.' );
+		reindeer = new ReindeerState( r, CharGrid.EAST, 0 );
 
 		// extract the position of the finish line
-		Coord2D f = null;
-		for( final Coord2D c : maze.find( 'E' ) ) f = c;
-		maze.unset( f );
-		finish = f;
+		finish = maze.find( 'E' );
+		maze.set( finish, '.' );
+		
+		incremental = search == Search.Incremental ? new IncrementalSearch( maze, reindeer.pos, reindeer.dir, finish ) : null;
+	}
+	
+	/**
+	 * Changes a single tile of the maze from a wall into an open tile or the
+	 * other way around. The next call to findBestPath or findBestSeats will
+	 * take the changed layout into account
+	 * 
+	 * @param x The x coordinate of the tile
+	 * @param y The y coordinate of the tile
+	 */
+	public void toggleWall( final int x, final int y ) {
+		final int c = maze.index( x, y );
+		if( !maze.contains( x, y ) || c == reindeer.pos || c == finish )
+			throw new IllegalArgumentException( "Cannot toggle the tile at (" + x + "," + y + ")" );
+		
+		maze.set( c, maze.get( c ) == '#' ? '.' : '#' );
+		if( incremental != null ) incremental.changed( c );
 	}
 	
 	/**
@@ -62,6 +123,30 @@ public class ReindeerMaze {
 	 *   the lowest score.
 	 */
 	public long findBestPath( ) {
+		switch( search ) {
+			case Paths: break;
+			
+			case Junctions: {
+				final JunctionGraph g = new JunctionGraph( maze, reindeer.pos, reindeer.dir, finish );
+				final long best = g.run( false );
+				expanded = g.getExpanded( );
+				return best;
+			}
+			
+			case Incremental: {
+				final long best = incremental.solve( );
+				expanded = incremental.getExpanded( );
+				return best;
+			}
+			
+			default: {
+				final StateSearch s = createSearch( );
+				final long best = s.run( false );
+				expanded = s.getExpanded( );
+				return best;
+			}
+		}
+		
 		// finds all best paths and return the value of any of them
 		// note that this could be optimised by terminating the solve algorithm
 		// when we find the first path that reaches the finish
@@ -76,11 +161,35 @@ public class ReindeerMaze {
 	 *   solution paths
 	 */
 	public long findBestSeats( ) {
+		switch( search ) {
+			case Paths: break;
+			
+			case Junctions: {
+				final JunctionGraph g = new JunctionGraph( maze, reindeer.pos, reindeer.dir, finish );
+				g.run( true );
+				expanded = g.getExpanded( );
+				return g.countTiles( );
+			}
+			
+			case Incremental: {
+				incremental.solve( );
+				expanded = incremental.getExpanded( );
+				return incremental.countTiles( );
+			}
+			
+			default: {
+				final StateSearch s = createSearch( );
+				s.run( true );
+				expanded = s.getExpanded( );
+				return s.countTiles( );
+			}
+		}
+		
 		// first find all possible optimal paths
 		final List<RSPath> solutions = solve( );
 		
 		// then use a set to keep only unique tiles of each path
-		final Set<Coord2D> tiles = new HashSet<>( );
+		final Set<Integer> tiles = new HashSet<>( );
 		for( final RSPath p : solutions ) tiles.addAll( p.path );
 		
 		// and return the set size, i.e., the unique tiles part of at least one
@@ -88,6 +197,29 @@ public class ReindeerMaze {
 		return tiles.size( );
 	}
 	
+	/**
+	 * @return The number of states expanded by the last call to findBestPath or
+	 *   findBestSeats, or the number of paths taken from the queue when
+	 *   searching over paths
+	 */
+	public long getExpanded( ) {
+		return expanded;
+	}
+	
+	/**
+	 * Creates the search over packed reindeer states for the selected search
+	 * algorithm
+	 * 
+	 * @return The new search
+	 */
+	protected StateSearch createSearch( ) {
+		switch( search ) {
+			case AStar: return new StateSearch( maze, reindeer.pos, reindeer.dir, finish, true );
+			case Bidirectional: return new BidirectionalSearch( maze, reindeer.pos, reindeer.dir, finish );
+			default: return new StateSearch( maze, reindeer.pos, reindeer.dir, finish );
+		}
+	}
+	
 	/**
 	 * Actually performs the solving part, finding all lowest score paths that
 	 * reach the finish line.
@@ -107,17 +239,19 @@ public class ReindeerMaze {
 		// keep track of all found solutions and the lowest solution score so far
 		final List<RSPath> solutions = new ArrayList<>( );
 		long shortest = Long.MAX_VALUE;
+		expanded = 0;
 
 		// keep extending paths until no more improvement can be made
 		while( Q.size( ) > 0 ) {
 			// try to extend the lowest value path
 			final RSPath r = Q.poll( );
+			expanded++;
 
 			// path too long? abandon it! We only want shortest paths to the goal
 			if( r.value( ) > shortest ) continue;
 			
 			// are we there yet? 
-			if( r.head.pos.equals( finish ) ) {
+			if( r.head.pos == finish ) {
 				// yes, store it and stop exploring this one further 
 				solutions.add( r );
 				shortest = r.value( );
@@ -156,8 +290,8 @@ public class ReindeerMaze {
 		maze.set( reindeer.pos, 'S' );
 		maze.set( finish, 'E' );
 		sb.append( maze.toString( ) );
-		maze.unset( finish );
-		maze.unset( reindeer.pos );
+		maze.set( finish, '.' );
+		maze.set( reindeer.pos, '.' );
 		return sb.toString( );
 	}	
 	
@@ -168,8 +302,8 @@ public class ReindeerMaze {
 		/** The head of this path */
 		protected final ReindeerState head;
 		
-		/** The tiles of the maze that are traversed by this path */
-		protected final List<Coord2D> path;
+		/** The cell indices of the tiles that are traversed by this path */
+		protected final List<Integer> path;
 		
 		/**
 		 * Creates a new path from the given starting state
@@ -216,11 +350,11 @@ public class ReindeerMaze {
 	 * tiles through the maze
 	 */
 	private class ReindeerState {
-		/** The position of the reindeer */
-		protected final Coord2D pos;
+		/** The cell index of the position of the reindeer */
+		protected final int pos;
 		
-		/** The direction the reindeer is currently facing */
-		protected final Direction dir;
+		/** The index of the direction the reindeer is currently facing */
+		protected final int dir;
 		
 		/** The value of the moves taken so far */
 		protected final long value;
@@ -228,11 +362,11 @@ public class ReindeerMaze {
 		/**
 		 * Creates a new state for the reindeer to be in
 		 * 
-		 * @param pos The position of the reindeer
-		 * @param dir The direction it is facing in
+		 * @param pos The cell index of the reindeer
+		 * @param dir The index of the direction it is facing in
 		 * @param value The value of the path taken so far
 		 */
-		public ReindeerState( final Coord2D pos, final Direction dir, final long value ) {
+		public ReindeerState( final int pos, final int dir, final long value ) {
 			this.pos = pos;
 			this.dir = dir;
 			this.value = value;
@@ -249,20 +383,22 @@ public class ReindeerMaze {
 			final List<ReindeerState> next = new ArrayList<>( 3 );
 			
 			// move forward
-			if( maze.get( pos.move( dir, 1 ) ) == '.' ) next.add( new ReindeerState( pos.move( dir, 1 ), dir, value + 1 ) );
+			if( maze.get( maze.move( pos, dir ) ) == '.' ) next.add( new ReindeerState( maze.move( pos, dir ), dir, value + 1 ) );
 			
 			// turn 90 degrees left and move one step
-			if( maze.get( pos.move( dir.turn( -1 ), 1 ) ) == '.' ) next.add( new ReindeerState( pos.move( dir.turn( -1 ), 1 ), dir.turn( -1 ), value + 1001 ) );
+			final int left = CharGrid.turn( dir, -1 );
+			if( maze.get( maze.move( pos, left ) ) == '.' ) next.add( new ReindeerState( maze.move( pos, left ), left, value + 1001 ) );
 			
 			// turn 90 degrees right and move one step
-			if( maze.get( pos.move( dir.turn( 1 ), 1 ) ) == '.' ) next.add( new ReindeerState( pos.move( dir.turn( 1 ), 1 ), dir.turn( 1 ), value + 1001 ) );			
+			final int right = CharGrid.turn( dir, 1 );
+			if( maze.get( maze.move( pos, right ) ) == '.' ) next.add( new ReindeerState( maze.move( pos, right ), right, value + 1001 ) );			
 			
 			return next;
 		}
 		
 		/** @return A unique key without value for comparison of similar states */
 		public String stateKey( ) {
-			return pos.toString( ) + "|" + dir.toSymbol( );
+			return pos + "|" + dir;
 		}
 		
 		/**
@@ -276,7 +412,7 @@ public class ReindeerMaze {
 		public boolean equals( Object obj ) {
 			if( obj == null || !(obj instanceof ReindeerState) ) return false;
 			final ReindeerState r = (ReindeerState)obj;
-			return pos.equals( r.pos ) && dir.equals( r.dir ) && value == r.value;
+			return pos == r.pos && dir == r.dir && value == r.value;
 		}
 		
 		/** @return The hashcode of the state, given by hashing its unique string */
@@ -286,7 +422,7 @@ public class ReindeerMaze {
 
 		/** @return The string description of the state */
 		public String toString( ) {
-			return pos.toString( ) + "|" + dir.toSymbol( ) + ": " + value;
+			return "(" + maze.getX( pos ) + "," + maze.getY( pos ) + ")|" + CharGrid.symbol( dir ) + ": " + value;
 		}
 	}
 }
@@ -0,0 +1,250 @@
+package challenges.day16;
+
+import java.util.Arrays;
+
+import challenges.grid.CharGrid;
+
+/**
+ * Dijkstra search over the states of the reindeer in the maze. Every state is
+ * packed into a single integer ID as cell index * 4 + direction, so that the
+ * distances and predecessors of all states can be held in flat primitive
+ * arrays and no objects are created during the search. Instead of storing the
+ * optimal paths, the search records for every state from which directions it
+ * was reached at the lowest cost. Together these form a DAG of all optimal
+ * paths that can be walked back from the finish to recover their tiles.
+ * 
+ * The search can optionally be guided towards the finish as an A* search. Its
+ * heuristic is the Manhattan distance to the finish plus the cost of the
+ * minimal number of turns needed to face the finish. This never overestimates
+ * the remaining cost, so the A* search still finds all lowest-cost paths.
+ */
+public class StateSearch {
+	/** The cost of a single step forward */
+	public static final long STEP = 1;
+
+	/** The additional cost of turning 90 degrees before a step */
+	public static final long TURN = 1000;
+
+	/** The maze layout, open tiles are '.' */
+	protected final CharGrid maze;
+
+	/** The packed starting state of the reindeer */
+	protected final int start;
+
+	/** The cell index of the finish */
+	protected final int finish;
+
+	/** The lowest known cost to reach every state */
+	protected final long[] dist;
+
+	/** Bit mask per state of the directions of the states that precede it on
+	 * a lowest-cost path */
+	protected final byte[] pred;
+
+	/** The lowest cost to reach the finish, -1 if not (yet) known */
+	protected long best;
+
+	/** True to guide the search by the A* heuristic */
+	protected final boolean astar;
+
+	/** The coordinates of the finish, used by the heuristic */
+	protected final int finishX, finishY;
+
+	/** The number of states expanded by the last run */
+	protected long expanded;
+
+	/**
+	 * Creates a new Dijkstra search
+	 *
+	 * @param maze The maze layout
+	 * @param start The cell index at which the reindeer starts
+	 * @param dir The direction the reindeer initially faces
+	 * @param finish The cell index of the finish
+	 */
+	public StateSearch( final CharGrid maze, final int start, final int dir, final int finish ) {
+		this( maze, start, dir, finish, false );
+	}
+
+	/**
+	 * Creates a new search
+	 *
+	 * @param maze The maze layout
+	 * @param start The cell index at which the reindeer starts
+	 * @param dir The direction the reindeer initially faces
+	 * @param finish The cell index of the finish
+	 * @param astar True to run an A* search, false for plain Dijkstra
+	 */
+	public StateSearch( final CharGrid maze, final int start, final int dir, final int finish, final boolean astar ) {
+		this.maze = maze;
+		this.start = state( start, dir );
+		this.finish = finish;
+		this.dist = new long[ maze.size( ) * 4 ];
+		this.pred = new byte[ dist.length ];
+		this.best = -1;
+		this.astar = astar;
+		this.finishX = maze.getX( finish );
+		this.finishY = maze.getY( finish );
+	}
+
+	/**
+	 * Packs a cell and direction into a state ID
+	 *
+	 * @param cell The cell index
+	 * @param dir The direction index
+	 * @return The state ID
+	 */
+	public static int state( final int cell, final int dir ) {
+		return (cell << 2) | dir;
+	}
+
+	/** @return The number of states expanded by the last run */
+	public long getExpanded( ) {
+		return expanded;
+	}
+
+	/**
+	 * Determines a lower bound on the cost to reach the finish from a state,
+	 * which is the number of steps if there were no walls plus the cost of the
+	 * turns needed to walk into the directions of the finish. If the finish
+	 * lies straight ahead, no turn is needed. If it lies to the side or it is
+	 * off both axes while we face one of the directions towards it, at least
+	 * one turn is needed. Otherwise we have to turn at least twice.
+	 *
+	 * @param cell The cell index
+	 * @param dir The direction index
+	 * @return The estimated cost to the finish, or 0 when not running A*
+	 */
+	protected long estimate( final int cell, final int dir ) {
+		if( !astar ) return 0;
+
+		final int dx = finishX - maze.getX( cell );
+		final int dy = finishY - maze.getY( cell );
+		final int h = dx > 0 ? CharGrid.EAST : (dx < 0 ? CharGrid.WEST : -1);
+		final int v = dy > 0 ? CharGrid.SOUTH : (dy < 0 ? CharGrid.NORTH : -1);
+
+		final int turns;
+		if( h < 0 && v < 0 ) turns = 0;
+		else if( h < 0 || v < 0 ) {
+			final int to = h < 0 ? v : h;
+			turns = dir == to ? 0 : (dir == CharGrid.turn( to, 2 ) ? 2 : 1);
+		} else turns = dir == h || dir == v ? 1 : 2;
+
+		return Math.abs( dx ) + Math.abs( dy ) + turns * TURN;
+	}
+
+	/**
+	 * Runs the search from the start state until the lowest cost to the finish
+	 * is known
+	 *
+	 * @param allpaths True to continue until all lowest-cost paths to the finish
+	 *   are in the predecessor DAG, false to stop at the first one
+	 * @return The lowest cost to reach the finish, -1 if it cannot be reached
+	 */
+	public long run( final boolean allpaths ) {
+		Arrays.fill( dist, Long.MAX_VALUE );
+		Arrays.fill( pred, (byte)0 );
+		best = -1;
+		expanded = 0;
+
+		final IndexedHeap Q = new IndexedHeap( dist.length );
+		dist[start] = 0;
+		Q.push( start, estimate( start >> 2, start & 3 ) );
+
+		while( !Q.isEmpty( ) ) {
+			// once all states at the best cost have been settled, no other state
+			// can be on a lowest-cost path
+			if( best >= 0 && Q.peekKey( ) > best ) break;
+
+			final int s = Q.poll( );
+			final int c = s >> 2;
+			final int d = s & 3;
+			expanded++;
+
+			// reached the finish? Paths do not continue beyond it
+			if( c == finish ) {
+				best = dist[s];
+				if( !allpaths ) break;
+				continue;
+			}
+
+			// try moving forward, or turning left or right and then moving
+			for( int t = -1; t <= 1; t++ ) {
+				final int nd = CharGrid.turn( d, t );
+				final int n = maze.move( c, nd );
+				if( maze.get( n ) != '.' ) continue;
+
+				final int ns = state( n, nd );
+				final long v = dist[s] + STEP + (t != 0 ? TURN : 0);
+				if( v < dist[ns] ) {
+					dist[ns] = v;
+					pred[ns] = (byte)(1 << d);
+					Q.push( ns, v + estimate( n, nd ) );
+				} else if( v == dist[ns] ) {
+					pred[ns] |= 1 << d;
+				}
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Counts the unique tiles that are part of at least one lowest-cost path by
+	 * walking the predecessor DAG back from the finish. Requires the search to
+	 * have been run with allpaths set
+	 *
+	 * @return The number of tiles on lowest-cost paths
+	 */
+	public int countTiles( ) {
+		if( best < 0 ) return 0;
+
+		final boolean[] seen = new boolean[ dist.length ];
+		final int[] stack = new int[ dist.length ];
+		int sp = 0;
+
+		// start from every finish state that is reached at the lowest cost
+		for( int d = 0; d < 4; d++ ) {
+			final int s = state( finish, d );
+			if( dist[s] != best ) continue;
+			seen[s] = true;
+			stack[sp++] = s;
+		}
+
+		return walkBack( stack, sp, seen, new boolean[ maze.size( ) ] );
+	}
+
+	/**
+	 * Walks the predecessor DAG back from the given states towards the start,
+	 * marking the tiles of all states on the way
+	 *
+	 * @param stack The stack of states to walk back from, it must be large
+	 *   enough to hold every state once
+	 * @param sp The number of states on the stack
+	 * @param seen The states that have already been put on the stack
+	 * @param tiles The tiles that have already been marked
+	 * @return The number of newly marked tiles
+	 */
+	protected int walkBack( final int[] stack, int sp, final boolean[] seen, final boolean[] tiles ) {
+		int count = 0;
+		while( sp > 0 ) {
+			final int s = stack[--sp];
+			final int c = s >> 2;
+			if( !tiles[c] ) {
+				tiles[c] = true;
+				count++;
+			}
+
+			// the predecessor is one step back against the direction of the state
+			final int p = c - maze.offset( s & 3 );
+			for( int d = 0; d < 4; d++ ) {
+				if( (pred[s] & (1 << d)) == 0 ) continue;
+				final int ps = state( p, d );
+				if( seen[ps] ) continue;
+				seen[ps] = true;
+				stack[sp++] = ps;
+			}
+		}
+
+		return count;
+	}
+}
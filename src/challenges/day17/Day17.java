@@ -51,7 +51,7 @@ public class Day17 {
 	 * @return The value to set to register A to make the program reproduce
 	 *   itself through its output instructions
 	 */
-	private static long part2( final List<String> input ) {
+	public static long part2( final List<String> input ) {
 		final ReverseEngineerICM re = new ReverseEngineerICM( new IntCodeMachine( input ) );
 		final String targetoutput = input.get( 4 ).split( ": " )[1];
 		return re.findOutput( targetoutput );
@@ -44,7 +44,7 @@ public class Day18 {
 	 *   without traversing any corrupted memory segments. If no such path exists,
 	 *   -1 is returned.
 	 */
-	private static long part1( final List<String> corrupt, final int memsize, final int nanoseconds ) {
+	public static long part1( final List<String> corrupt, final int memsize, final int nanoseconds ) {
 		// create the automaton
 		final PushdownAutomaton pa = new PushdownAutomaton( memsize );
 		
@@ -71,7 +71,7 @@ public class Day18 {
 	 *   longer can be traversed from top left to bottom right without crossing
 	 *   any corrupted memory segment
 	 */
-	private static String part2( final List<String> input, final int memsize ) {
+	public static String part2( final List<String> input, final int memsize ) {
 		// perform binary search on the segment list index
 		int lb = 0;
 		int ub = input.size( ) - 1;
@@ -47,7 +47,7 @@ public class Day19 {
 	 *   be matched and the sum of unique pattern configurations that are possible
 	 *   to match these arrangements
 	 */
-	private static long[] solve( final List<String> input ) {
+	public static long[] solve( final List<String> input ) {
 		// create a new OnsenTowel to find pattern configurations. Note that this
 		// class maintains an internal memoisation table that holds for every (sub)
 		// pattern the count of unique configurations that can produce it. Hence,
@@ -1,14 +1,12 @@
 package challenges.day20;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
-import aocutil.geometry.Coord2D;
-import aocutil.grid.CoordGrid;
+import challenges.grid.CharGrid;
+import challenges.grid.DistanceField;
 
 /**
  * Models a CPU race track on which programs can race. To make things more
@@ -17,13 +15,20 @@ import aocutil.grid.CoordGrid;
  */
 public class CPUMaze {
 	/** The maze layout */
-	protected final CoordGrid<Character> maze;
+	protected final CharGrid maze;
 	
-	/** The race starting coordinate */
-	protected final Coord2D start;
+	/** The cell index of the race start */
+	protected final int start;
 
-	/** The race finish */
-	protected final Coord2D end;
+	/** The cell index of the race finish */
+	protected final int end;
+	
+	/** The cells of the race track in order from start to finish, or null if
+	 * the maze is not a single track without branches */
+	protected final int[] track;
+	
+	/** The position of every cell on the race track, -1 if it is not on it */
+	protected final int[] trackpos;
 	
 	/**
 	 * Reconstructs the CPU Maze from a list of strings that describes the layout
@@ -33,16 +38,51 @@ public class CPUMaze {
 	 *   models a row of the maze, describing the walls, tiles, start and end
 	 */
 	public CPUMaze( final List<String> layout ) {
-		maze = CoordGrid.fromCharGrid( layout, '.' );
+		maze = CharGrid.fromStrings( layout );
 		
 		// find start and end positions and remove them from the layout
-		Coord2D s = null, e = null;
-		for( final Coord2D c : maze.find( 'S' ) ) s = c;
-		for( final Coord2D c : maze.find( 'E' ) ) e = c;
-		maze.unset( s );
-		maze.unset( e );
-		this.start = s;
-		this.end = e;
+		this.start = maze.find( 'S' );
+		this.end = maze.find( 'E' );
+		maze.set( start, '.' );
+		maze.set( end, '.' );
+		
+		// trace the race track and record the position of every cell on it
+		track = traceTrack( );
+		trackpos = new int[ maze.size( ) ];
+		Arrays.fill( trackpos, -1 );
+		if( track != null )
+			for( int i = 0; i < track.length; i++ ) trackpos[ track[i] ] = i;
+	}
+	
+	/**
+	 * Follows the race track from the start to the finish
+	 * 
+	 * @return The cells of the track in order, or null if the track branches
+	 *   or ends before reaching the finish
+	 */
+	protected int[] traceTrack( ) {
+		final int[] T = new int[ maze.count( '.' ) ];
+		int n = 0;
+		int prev = -1;
+		int c = start;
+		while( true ) {
+			T[n++] = c;
+			if( c == end ) break;
+			
+			// find the only way forward that does not go back
+			int next = -1;
+			for( int d = 0; d < 4; d++ ) {
+				final int nc = maze.move( c, d );
+				if( nc == prev || maze.get( nc ) != '.' ) continue;
+				if( next >= 0 ) return null;
+				next = nc;
+			}
+			if( next < 0 || n == T.length ) return null;
+			
+			prev = c;
+			c = next;
+		}
+		return Arrays.copyOf( T, n );
 	}
 	
 	/**
@@ -58,139 +98,206 @@ public class CPUMaze {
 	 *   to the shortest path from start to end without cheating
 	 */
 	public long findCheatCount( final int maxcheatdist, final int minsaving ) {
-		// first build distance matrix that for every coordinate describes the
-		// length of the shortest path to the start and the finish coordinates
-		final Map<Coord2D, Integer> S = buildDistanceMatrix( start );
-		final Map<Coord2D, Integer> D = buildDistanceMatrix( end );
-		final Set<Cheat> C = new HashSet<>( );
+		// on a single track we can simply count cheats along the track
+		if( track != null ) return countTrackCheats( maxcheatdist, minsaving, 0, track.length );
 		
-		// store shortest path length for computation of cheat saving
-		final int shortest = D.get( start );
+		// otherwise, first build distance matrices that for every cell describe
+		// the length of the shortest path to the start and the finish
+		final int[] S = buildDistanceMatrix( start );
+		final int[] D = buildDistanceMatrix( end );
+		final int shortest = D[start];
+		final int W = maze.getWidth( );
+		final int H = maze.getHeight( );
 
-		// then for every combination of maze positions for which a cheat may help
-		// shorten the path length, see if we can get there by cheating and then
-		// keep those that save us the minimal required time
-		for( final Coord2D s : D.keySet( ) ) {
-			for( final Coord2D e : D.keySet( ) ) {
-				// valid to cheat this route?
-				final int chdist = s.getManhattanDistance( e );
-				if( chdist > maxcheatdist ) continue;
+		// then for every reachable cell, check the cells within cheat distance
+		// and count the cheats that save us at least the minimal required time
+		long count = 0;
+		for( int y = 0; y < H; y++ ) {
+			for( int x = 0; x < W; x++ ) {
+				final int s = maze.index( x, y );
+				if( D[s] < 0 || S[s] < 0 ) continue;
 				
-				// does it actually help us?
-				final int stepstogoal = D.get( e );
-				if( D.get( s ) < stepstogoal ) continue;				
-				
-				// yes, does it help enough?
-				final Cheat ch = new Cheat( s, e );
-				final int total = S.get( s ) + stepstogoal + chdist;
-				if( shortest - total < minsaving ) continue;
-				
-				// yes, add this cheat to set of available ones
-				C.add( ch );
+				for( int ty = Math.max( 0, y - maxcheatdist ); ty <= Math.min( H - 1, y + maxcheatdist ); ty++ ) {
+					final int dy = Math.abs( ty - y );
+					final int r = maxcheatdist - dy;
+					final int row = maze.index( 0, ty );
+					for( int tx = Math.max( 0, x - r ); tx <= Math.min( W - 1, x + r ); tx++ ) {
+						// does it actually help us, and does it help enough?
+						final int stepstogoal = D[ row + tx ];
+						if( stepstogoal < 0 || D[s] < stepstogoal ) continue;
+						final int total = S[s] + stepstogoal + dy + Math.abs( tx - x );
+						if( shortest - total >= minsaving ) count++;
+					}
+				}
 			}
 		}
 		
-		// return sum of cheat counts
-		return C.size( );
+		return count;
 	}
 
 	/**
-	 * Build a distance matrix from a given coordinate that holds the shortest
-	 * distance to reach it from every other tile in the maze
+	 * Finds the number of unique cheats that can be used by programs to reach
+	 * the race finish faster, splitting the work over the threads of a pool.
+	 * The track positions from which cheats start are divided into ranges that
+	 * are counted independently, each into its own counter, and only summed
+	 * when the ranges are joined. Falls back to the single threaded search if
+	 * the maze is not a single track.
 	 * 
-	 * @param to The goal coordinate to build distance matrix to
-	 * @return A distance matrix that holds an entry for every tile that can be
-	 *   reached from the given start coordinate the distance to it
+	 * @param maxcheatdist The maximum distance that programs may cheat (in one
+	 *   go and only once)
+	 * @param minsaving The minimal saving required by the cheat before counting
+	 *   the cheat
+	 * @param pool The pool to run the counting tasks on
+	 * @return The number of unique cheats of the specified max length possible
+	 *   within the CPU maze that realise at least the required saving compared
+	 *   to the shortest path from start to end without cheating
 	 */
-	protected Map<Coord2D, Integer> buildDistanceMatrix( final Coord2D to ) {
-		// use a simple BFS search that starts from the given coordinate and moves
-		// into every reachable tile of the maze while recording the travel
-		// distance to it
-		final Map<Coord2D, Integer> D = new HashMap<>( );
-		final Stack<Coord2D> explore = new Stack<>( );
-
-		// start with the given goal coordinate and distance 0, then in every round
-		// find its neighbours and record them at distance + 1
-		explore.push( to );
-		int dist = 0;
-		while( !explore.isEmpty( ) ) {
-			final Set<Coord2D> next = new HashSet<>( );
+	public long findCheatCount( final int maxcheatdist, final int minsaving, final ForkJoinPool pool ) {
+		if( track == null ) return findCheatCount( maxcheatdist, minsaving );
+		
+		// aim for a number of ranges well above the number of threads so that
+		// the work is balanced even if some ranges have fewer cells around them
+		final int grain = Math.max( 64, track.length / (pool.getParallelism( ) * 16) );
+		return pool.invoke( new CheatCounter( maxcheatdist, minsaving, 0, track.length, grain ) );
+	}
+	
+	/**
+	 * Builds the histogram of all cheats up to the given length in a single
+	 * pass over the race track, after which the number of cheats for any cheat
+	 * length and minimal saving can be looked up directly. Requires the maze to
+	 * be a single track. The counts of every cheat length only grow up to the
+	 * largest saving that occurs for that length
+	 * 
+	 * @param maxcheatdist The maximum cheat length to include
+	 * @return The histogram of cheats by length and saving
+	 */
+	public CheatHistogram buildCheatHistogram( final int maxcheatdist ) {
+		if( track == null ) throw new RuntimeException( "The cheat histogram requires the maze to be a single track" );
+		if( maxcheatdist < 0 ) throw new IllegalArgumentException( "Invalid cheat length " + maxcheatdist );
+		
+		// no cheat can be longer than the distance between opposite corners
+		final int W = maze.getWidth( );
+		final int H = maze.getHeight( );
+		final int L = (int)Math.min( maxcheatdist, (long)W + H - 2 );
+		final long[][] counts = new long[ L + 1 ][];
+		for( int d = 0; d <= L; d++ ) counts[d] = new long[ Math.max( 1, Math.min( 16, track.length - d ) ) ];
+		
+		// scan the same diamond as when counting, but record the cheat length
+		// and saving of every cheat to a cell further along the track
+		for( int i = 0; i < track.length; i++ ) {
+			final int x = maze.getX( track[i] );
+			final int y = maze.getY( track[i] );
 			
-			// explore all current distance coordinates, record distance and add
-			// its neighbours to the set to explore in next round
-			while( !explore.isEmpty( ) ) {
-				final Coord2D c = explore.pop( );
-				if( D.containsKey( c ) ) continue;
-				D.put( c, dist );
-				next.addAll( maze.getNeighbours( c, false, n -> maze.get( n ) != '#' ) );
+			for( int ty = Math.max( 0, y - maxcheatdist ); ty <= Math.min( H - 1, y + maxcheatdist ); ty++ ) {
+				final int dy = Math.abs( ty - y );
+				final int r = maxcheatdist - dy;
+				final int row = maze.index( 0, ty );
+				for( int tx = Math.max( 0, x - r ); tx <= Math.min( W - 1, x + r ); tx++ ) {
+					final int j = trackpos[ row + tx ];
+					if( j < i ) continue;
+					final int d = dy + Math.abs( tx - x );
+					final int saving = j - i - d;
+					if( saving >= counts[d].length ) counts[d] = Arrays.copyOf( counts[d], Math.min( Math.max( saving + 1, 2 * counts[d].length ), track.length - d ) );
+					counts[d][saving]++;
+				}
 			}
-			
-			// next round, increase distance and add all next candidates
-			explore.addAll( next );
-			dist++;
 		}
 		
-		// return completed distance matrix
-		return D;
+		return new CheatHistogram( maxcheatdist, counts );
 	}
 	
-	/** Class that uniquely describes a single cheat */
-	private class Cheat {
-		/** The starting coordinate of the cheat */
-		protected final Coord2D from;
-		
-		/** The position we end up in once the cheat is done */
-		protected final Coord2D to;
-		
-		/** Cached hash code that uniquely identifies this cheat */
-		private final int hashCode;
+	/**
+	 * Counts the cheats that start from a range of positions on the race track.
+	 * For every start position it scans the diamond of cells within cheat
+	 * distance, row by row, and looks up their position on the track. A cheat
+	 * saves the difference in track positions minus the cheat distance.
+	 * 
+	 * @param maxcheatdist The maximum distance that programs may cheat
+	 * @param minsaving The minimal saving required by the cheat
+	 * @param from The first track position to start cheats from
+	 * @param to The track position after the last one to start cheats from
+	 * @return The number of cheats starting from the range of positions that
+	 *   realise at least the required saving
+	 */
+	protected long countTrackCheats( final int maxcheatdist, final int minsaving, final int from, final int to ) {
+		final int W = maze.getWidth( );
+		final int H = maze.getHeight( );
 		
-		/**
-		 * Creates a new cheat from start to end position
-		 * 
-		 * @param start The position this cheat starts from
-		 * @param end The position this cheat ends in
-		 */
-		public Cheat( final Coord2D start, final Coord2D end ) {
-			this.from = start;
-			this.to = end;
+		long count = 0;
+		for( int i = from; i < to; i++ ) {
+			final int x = maze.getX( track[i] );
+			final int y = maze.getY( track[i] );
 			
-			// precompute and cache its hash code
-			hashCode = (from.toString( ) + to.toString( )).hashCode( );
+			for( int ty = Math.max( 0, y - maxcheatdist ); ty <= Math.min( H - 1, y + maxcheatdist ); ty++ ) {
+				final int dy = Math.abs( ty - y );
+				final int r = maxcheatdist - dy;
+				final int row = maze.index( 0, ty );
+				for( int tx = Math.max( 0, x - r ); tx <= Math.min( W - 1, x + r ); tx++ ) {
+					// only cheats that end further along the track can save time
+					final int j = trackpos[ row + tx ];
+					if( j >= i && j - i - dy - Math.abs( tx - x ) >= minsaving ) count++;
+				}
+			}
 		}
 		
-		/** @return The Manhattan distance from start to end of the cheat */
-		public int distance( ) {
-			return from.getManhattanDistance( to );
-		}
+		return count;
+	}
+	
+	/**
+	 * Build a distance matrix from a given cell that holds the shortest
+	 * distance to reach it from every other tile in the maze
+	 * 
+	 * @param to The cell index of the goal to build distance matrix to
+	 * @return A distance matrix that holds for every cell index the distance to
+	 *   the goal, DistanceField.UNREACHABLE if it cannot be reached
+	 */
+	protected int[] buildDistanceMatrix( final int to ) {
+		return new DistanceField( maze, to, '#' ).getDistances( );
+	}
+	
+	/** Task that counts the cheats from a range of track positions, splitting
+	 * the range in half until it is small enough */
+	private class CheatCounter extends RecursiveTask<Long> {
+		/** Serial version UID */
+		private static final long serialVersionUID = 1L;
+
+		/** The maximum cheat distance and minimal saving */
+		protected final int maxcheatdist, minsaving;
 		
-		/**
-		 * Tests this cheat to another object for equality
-		 * 
-		 * @param obj The object to test equality against
-		 * @return True iff the other object is a non-null Cheat and has the same
-		 *   start and end coordinates
-		 */
-		@Override
-		public boolean equals( Object obj ) {
-			if( obj == null || !(obj instanceof Cheat) ) return false;
-			final Cheat c = (Cheat)obj;
-			return from.equals( c.from ) && to.equals( c.to );
-		}
+		/** The range of track positions to count cheats from */
+		protected final int from, to;
+		
+		/** The range size below which it is no longer split */
+		protected final int grain;
 		
 		/**
-		 * @return The string description of the cheat, which is given by its
-		 * coordinates
+		 * Creates a new counting task
+		 * 
+		 * @param maxcheatdist The maximum cheat distance
+		 * @param minsaving The minimal saving required by a cheat
+		 * @param from The first track position to start cheats from
+		 * @param to The track position after the last one to start cheats from
+		 * @param grain The range size below which it is no longer split
 		 */
-		@Override
-		public String toString( ) {
-			return from + "->" + to + ": " + distance( );
+		public CheatCounter( final int maxcheatdist, final int minsaving, final int from, final int to, final int grain ) {
+			this.maxcheatdist = maxcheatdist;
+			this.minsaving = minsaving;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
 		}
 		
-		/** @return The hash code that unique identifies this cheat */
+		/** @return The number of cheats from the range */
 		@Override
-		public int hashCode( ) {
-			return hashCode;
+		protected Long compute( ) {
+			if( to - from <= grain ) return countTrackCheats( maxcheatdist, minsaving, from, to );
+			
+			// split in half, counting the upper half on this thread
+			final int mid = (from + to) >>> 1;
+			final CheatCounter lower = new CheatCounter( maxcheatdist, minsaving, from, mid, grain );
+			lower.fork( );
+			final long upper = new CheatCounter( maxcheatdist, minsaving, mid, to, grain ).compute( );
+			return upper + lower.join( );
 		}
 	}
 }
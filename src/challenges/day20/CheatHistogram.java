@@ -0,0 +1,93 @@
+package challenges.day20;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of all cheats in a CPU maze up to a maximum cheat length, counted
+ * by their exact length and saving. The histogram is turned into cumulative
+ * sums over both lengths and savings once it is complete, such that the number
+ * of cheats of any maximum length that realise any minimal saving can be
+ * looked up in constant time.
+ *
+ * The sums are held in a row of savings for every cheat length. Every row is
+ * trimmed to the largest saving of the cheats of at most that length, so the
+ * histogram size depends on the savings that actually occur. On a track where
+ * short cheats already save almost the whole track, every row is close to the
+ * track length, so the histogram then takes up to (maxlength + 1) times the
+ * track length longs.
+ */
+public class CheatHistogram {
+	/** The maximum cheat length in the histogram */
+	protected final int maxlength;
+
+	/** The number of cheats with at most the length and at least the saving,
+	 * indexed by [length][saving]. Lengths beyond the last row have the same
+	 * sums as the last row */
+	protected final long[][] sums;
+
+	/**
+	 * Creates a new histogram from the counts of cheats
+	 *
+	 * @param maxlength The maximum cheat length
+	 * @param counts The number of cheats of exactly the length and saving,
+	 *   indexed by [length][saving]. Rows may be of any length and cover the
+	 *   cheat lengths from 0 up to at most the maximum length. The arrays are
+	 *   converted into the cumulative sums in place where possible
+	 */
+	public CheatHistogram( final int maxlength, final long[][] counts ) {
+		if( maxlength < 0 || counts.length == 0 || counts.length > maxlength + 1 ) throw new IllegalArgumentException( "Invalid histogram size " + counts.length + " for maximum length " + maxlength );
+		this.maxlength = maxlength;
+		this.sums = counts;
+
+		// first sum savings from high to low for every length, then add up the
+		// rows of all shorter lengths, growing a row if a shorter length has
+		// larger savings
+		for( int d = 0; d < sums.length; d++ ) {
+			// drop the unused capacity beyond the largest saving of this length
+			int n = sums[d].length;
+			while( n > 1 && sums[d][n - 1] == 0 ) n--;
+			long[] row = sums[d] = n < sums[d].length ? Arrays.copyOf( sums[d], n ) : sums[d];
+			for( int s = row.length - 2; s >= 0; s-- ) row[s] += row[s + 1];
+			if( d == 0 ) continue;
+
+			final long[] prev = sums[d - 1];
+			// the savings this row lacks have no cheats of this length, so they
+			// are just the sums of the shorter lengths
+			if( row.length < prev.length ) row = sums[d] = Arrays.copyOf( row, prev.length );
+			for( int s = 0; s < prev.length; s++ ) row[s] += prev[s];
+		}
+	}
+
+	/** @return The maximum cheat length covered by the histogram */
+	public int getMaxLength( ) {
+		return maxlength;
+	}
+
+	/**
+	 * Looks up the number of cheats up to the given length that realise at
+	 * least the given saving
+	 *
+	 * @param maxcheatdist The maximum cheat length, at most the maximum length
+	 *   of the histogram
+	 * @param minsaving The minimal saving
+	 * @return The number of cheats
+	 */
+	public long count( final int maxcheatdist, final int minsaving ) {
+		if( maxcheatdist > maxlength ) throw new IllegalArgumentException( "Cheat length " + maxcheatdist + " exceeds histogram maximum " + maxlength );
+		if( maxcheatdist < 0 ) return 0;
+		final long[] row = sums[Math.min( maxcheatdist, sums.length - 1 )];
+		if( minsaving >= row.length ) return 0;
+		return row[Math.max( 0, minsaving )];
+	}
+
+	/**
+	 * Determines the number of cheats of exactly the given length and saving
+	 *
+	 * @param length The cheat length
+	 * @param saving The saving
+	 * @return The number of cheats
+	 */
+	public long countExact( final int length, final int saving ) {
+		return count( length, saving ) - count( length, saving + 1 ) - count( length - 1, saving ) + count( length - 1, saving + 1 );
+	}
+}
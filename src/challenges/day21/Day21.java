@@ -1,6 +1,7 @@
 package challenges.day21;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import aocutil.io.FileReader;
 
@@ -38,10 +39,7 @@ public class Day21 {
 	 *   instruction string that will eventually input that code
 	 */
 	private static long findInstructions( final List<String> input, final int robots ) {
-		long result = 0;
 		final RobotController rc = new RobotController( robots );
-		for( final String s : input )
-			result += Long.parseLong( s.substring( 0, s.indexOf( 'A' ) ) ) * rc.optimiseEncoding( s );
-		return result;
+		return rc.encodeAll( input, ForkJoinPool.commonPool( ) ).getComplexity( );
 	}
 }
\ No newline at end of file
@@ -0,0 +1,217 @@
+package challenges.day21;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable keypad layout with its compiled move table. For every pair of keys
+ * the table holds the instruction strings that move a robot arm from the one
+ * key to the other without ever hovering over a gap, excluding the final 'A'
+ * that presses the key.
+ *
+ * Of all shortest instruction strings only those with the fewest turns are
+ * kept. Every turn adds a move between two different directional keys where
+ * repeating a direction would only take a single press, so the other strings
+ * never lead to shorter encodings. This caps the table at two strings per pair
+ * for keypads without gaps in the way, instead of a number that grows
+ * binomially with the distance between the keys.
+ *
+ * Keypads are compiled once per layout and shared through a cache of bounded
+ * size, such that controllers on any thread can reuse them.
+ */
+public final class Keypad {
+	/** The character that marks a gap in the layout */
+	public static final char GAP = '.';
+
+	/** The maximum number of keys on a keypad */
+	public static final int MAX_KEYS = 64;
+
+	/** The maximum number of layouts kept in the cache */
+	public static final int MAX_CACHED = 256;
+
+	/** The cache of compiled keypads by layout */
+	private static final ConcurrentHashMap<String, Keypad> CACHE = new ConcurrentHashMap<>( );
+
+	/** The numeric keypad of the door */
+	public static final Keypad NUMERIC = of( "789", "456", "123", ".0A" );
+
+	/** The directional keypad used to instruct the robots */
+	public static final Keypad DIRECTIONAL = of( ".^A", "<v>" );
+
+	/** The keys of the keypad, in order of their index */
+	protected final String keys;
+
+	/** The column and row of every key */
+	private final int[] X, Y;
+
+	/** The instruction strings for every move, indexed by from * size + to */
+	private final String[][] moves;
+
+	/**
+	 * Compiles a keypad layout
+	 *
+	 * @param layout The rows of the layout, gaps are marked by GAP
+	 * @throws IllegalArgumentException if the layout has duplicate or too many
+	 *   keys, or if there is a pair of keys that cannot be reached from one
+	 *   another in the least number of moves
+	 */
+	private Keypad( final String[] layout ) {
+		// collect the keys and their positions
+		final StringBuilder sb = new StringBuilder( );
+		final List<int[]> pos = new ArrayList<>( );
+		for( int y = 0; y < layout.length; y++ ) {
+			for( int x = 0; x < layout[y].length( ); x++ ) {
+				final char c = layout[y].charAt( x );
+				if( c == GAP ) continue;
+				if( sb.indexOf( "" + c ) >= 0 ) throw new IllegalArgumentException( "Duplicate key '" + c + "' in keypad layout" );
+				sb.append( c );
+				pos.add( new int[] { x, y } );
+			}
+		}
+		if( sb.length( ) == 0 || sb.length( ) > MAX_KEYS ) throw new IllegalArgumentException( "Keypad must have 1 to " + MAX_KEYS + " keys, got " + sb.length( ) );
+
+		keys = sb.toString( );
+		final int K = keys.length( );
+		X = new int[ K ];
+		Y = new int[ K ];
+		for( int i = 0; i < K; i++ ) {
+			X[i] = pos.get( i )[0];
+			Y[i] = pos.get( i )[1];
+		}
+
+		// generate the instruction strings for every move and keep only those
+		// with the fewest turns
+		moves = new String[ K * K ][];
+		final List<String> M = new ArrayList<>( );
+		for( int a = 0; a < K; a++ ) {
+			for( int b = 0; b < K; b++ ) {
+				M.clear( );
+				buildMoves( layout, X[a], Y[a], X[b], Y[b], "", M );
+				if( M.isEmpty( ) ) throw new IllegalArgumentException( "Keypad has no shortest move from '" + keys.charAt( a ) + "' to '" + keys.charAt( b ) + "'" );
+
+				int minturns = Integer.MAX_VALUE;
+				for( final String m : M ) minturns = Math.min( minturns, turns( m ) );
+				final List<String> best = new ArrayList<>( );
+				for( final String m : M ) if( turns( m ) == minturns ) best.add( m );
+				moves[a * K + b] = best.toArray( new String[ best.size( ) ] );
+			}
+		}
+	}
+
+	/**
+	 * Returns the compiled keypad for the given layout. Keypads are taken from
+	 * the shared cache if possible, a layout is only compiled and added if the
+	 * cache is not full yet
+	 *
+	 * @param layout The rows of the layout, gaps are marked by GAP
+	 * @return The compiled keypad
+	 */
+	public static Keypad of( final String... layout ) {
+		final String key = String.join( "\n", layout );
+		final Keypad k = CACHE.get( key );
+		if( k != null ) return k;
+
+		if( CACHE.size( ) >= MAX_CACHED ) return new Keypad( layout.clone( ) );
+		return CACHE.computeIfAbsent( key, l -> new Keypad( layout.clone( ) ) );
+	}
+
+	/**
+	 * Recursively generates every shortest instruction string that moves from
+	 * one position to another without passing over a gap
+	 *
+	 * @param layout The keypad layout
+	 * @param x The current column
+	 * @param y The current row
+	 * @param tx The target column
+	 * @param ty The target row
+	 * @param moves The moves taken so far
+	 * @param M The list to add the instruction strings to
+	 */
+	private static void buildMoves( final String[] layout, final int x, final int y, final int tx, final int ty, final String moves, final List<String> M ) {
+		// illegal move?
+		if( x >= layout[y].length( ) || layout[y].charAt( x ) == GAP ) return;
+
+		// are we there yet?
+		if( x == tx && y == ty ) {
+			M.add( moves );
+			return;
+		}
+
+		// nope, move one step towards the target along either axis
+		if( x != tx ) buildMoves( layout, x + (tx > x ? 1 : -1), y, tx, ty, moves + (tx > x ? '>' : '<'), M );
+		if( y != ty ) buildMoves( layout, x, y + (ty > y ? 1 : -1), tx, ty, moves + (ty > y ? 'v' : '^'), M );
+	}
+
+	/**
+	 * Counts the changes of direction in an instruction string
+	 *
+	 * @param moves The instruction string
+	 * @return The number of turns
+	 */
+	private static int turns( final String moves ) {
+		int t = 0;
+		for( int i = 1; i < moves.length( ); i++ ) if( moves.charAt( i ) != moves.charAt( i - 1 ) ) t++;
+		return t;
+	}
+
+	/** @return The number of keys on the keypad */
+	public int size( ) {
+		return keys.length( );
+	}
+
+	/** @return The keys of the keypad, in order of their index */
+	public String getKeys( ) {
+		return keys;
+	}
+
+	/**
+	 * @param index The key index
+	 * @return The key at the index
+	 */
+	public char getKey( final int index ) {
+		return keys.charAt( index );
+	}
+
+	/**
+	 * @param key The key
+	 * @return The index of the key, -1 if it is not on the keypad
+	 */
+	public int indexOf( final char key ) {
+		return keys.indexOf( key );
+	}
+
+	/**
+	 * @param from The index of the key to move from
+	 * @param to The index of the key to move to
+	 * @return The number of instruction strings for the move
+	 */
+	public int getMoveCount( final int from, final int to ) {
+		return moves[from * keys.length( ) + to].length;
+	}
+
+	/**
+	 * @param from The index of the key to move from
+	 * @param to The index of the key to move to
+	 * @param i The index of the instruction string
+	 * @return The i-th instruction string for the move, without the final 'A'
+	 */
+	public String getMove( final int from, final int to, final int i ) {
+		return moves[from * keys.length( ) + to][i];
+	}
+
+	/** @return The layout of the keypad */
+	@Override
+	public String toString( ) {
+		final StringBuilder sb = new StringBuilder( );
+		int row = 0;
+		int col = 0;
+		for( int i = 0; i < keys.length( ); i++ ) {
+			for( ; row < Y[i]; row++, col = 0 ) sb.append( '\n' );
+			for( ; col < X[i]; col++ ) sb.append( GAP );
+			sb.append( keys.charAt( i ) );
+			col++;
+		}
+		return sb.toString( );
+	}
+}
@@ -1,56 +1,230 @@
 package challenges.day21;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-
-import aocutil.geometry.Coord2D;
-import aocutil.grid.CoordGrid;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Models a controller for a number of robots that operate in sequence to
  * eventually enter a code into a numerical keypad.
+ * 
+ * The controller is thread-safe: the cost tables are read-only once built and
+ * the memoisation table of the recursive search is a concurrent map, so codes
+ * can be encoded from multiple threads at once.
  */
 public class RobotController {
 	/** The number of robots to instruct */
 	protected final int N;
 	
+	/** The keypad into which the code is entered */
+	protected final Keypad keypad;
+	
+	/** The directional keypad used to instruct the robots */
+	protected final Keypad dirpad;
+	
+	/** The cost matrix for the directional keypads, where C[d][a * D + b] is
+	 * the number of key presses needed at the start of a chain of d robots to
+	 * have the last robot move from directional key a to b and press it. Null
+	 * if the controller uses memoised recursion instead */
+	protected final long[][] C;
+	
+	/** The cost of moving from key a to b of the code keypad and pressing it
+	 * through the full chain of robots, indexed by a * K + b. Null if the
+	 * controller uses
+	 * memoised recursion instead */
+	protected final long[] T;
+	
 	/** The memoisation table that stores lengths of already encoded movements */
-	private final HashMap<String, Long> M;
+	private final ConcurrentHashMap<String, Long> M;
 	
-	/** Table that holds the movement encodings */
-	private final HashMap<String, List<String>> E;
+	/**
+	 * Creates a new RobotController that uses precomputed cost tables
+	 * 
+	 * @param robots The number of robots to control
+	 */
+	public RobotController( final int robots ) {
+		this( robots, true );
+	}
 	
 	/**
 	 * Creates a new RobotController
 	 * 
 	 * @param robots The number of robots to control
+	 * @param precompute True to precompute the cost tables for all robots, false
+	 *   to find encodings by memoised recursion
 	 */
-	public RobotController( final int robots ) {
+	public RobotController( final int robots, final boolean precompute ) {
+		this( robots, Keypad.NUMERIC, Keypad.DIRECTIONAL, precompute );
+	}
+	
+	/**
+	 * Creates a new RobotController for custom keypads
+	 * 
+	 * @param robots The number of robots to control
+	 * @param keypad The keypad into which the code is entered
+	 * @param dirpad The directional keypad used to instruct the robots, it must
+	 *   have the keys '^', 'v', '<', '>' and 'A'
+	 * @param precompute True to precompute the cost tables for all robots, false
+	 *   to find encodings by memoised recursion
+	 */
+	public RobotController( final int robots, final Keypad keypad, final Keypad dirpad, final boolean precompute ) {
+		for( final char c : new char[] { '^', 'v', '<', '>', 'A' } )
+			if( dirpad.indexOf( c ) < 0 ) throw new IllegalArgumentException( "Directional keypad is missing key '" + c + "'" );
+		if( keypad.indexOf( 'A' ) < 0 ) throw new IllegalArgumentException( "Keypad is missing key 'A'" );
+		
 		N = robots;
+		this.keypad = keypad;
+		this.dirpad = dirpad;
 		
 		// initialise memoisation table that holds length of already expanded
 		// instruction string parts
-		M = new HashMap<>( );
+		M = new ConcurrentHashMap<>( );
 
-		// precomputes a 'move table' that holds the instruction to give to a robot
-		// for every move from one character to another
-		E = new HashMap<>( );
-		buildMoveTable( new String[] { "789", "456", "123", ".0A" } );
-		buildMoveTable( new String[] { ".^A", "<v>" } );
+		// build the cost tables bottom-up from the move tables of the keypads if
+		// requested
+		if( precompute ) {
+			C = buildCostMatrix( );
+			T = N > 0 ? buildCostTable( keypad, C[N - 1] ) : null;
+		} else {
+			C = null;
+			T = null;
+		}
+	}
+	
+	/**
+	 * Builds the cost matrix for chains of 0 up to N-1 robots operating
+	 * directional keypads. A chain of 0 robots means that the key is pressed
+	 * directly, which costs a single press. For every further robot, the cost
+	 * of a move is the cheapest of all its instruction sequences when these are
+	 * typed by the chain one robot shorter, starting and ending at 'A'.
+	 * 
+	 * Costs that no longer fit in a long are capped at Long.MAX_VALUE
+	 * 
+	 * @return The cost matrix
+	 */
+	private long[][] buildCostMatrix( ) {
+		final int K = dirpad.size( );
+		final long[][] costs = new long[ Math.max( 1, N ) ][];
+		costs[0] = new long[ K * K ];
+		Arrays.fill( costs[0], 1 );
+		for( int d = 1; d < costs.length; d++ )
+			costs[d] = buildCostTable( dirpad, costs[d - 1] );
+		return costs;
+	}
+	
+	/**
+	 * Determines the cost of every move on a keypad when the instructions are
+	 * typed on a directional keypad with the given costs
+	 * 
+	 * @param pad The keypad
+	 * @param dircost The cost of every move on the directional keypad that is
+	 *   used to instruct this keypad
+	 * @return The costs of moving between every pair of keys of the keypad,
+	 *   indexed by from * size + to
+	 */
+	private long[] buildCostTable( final Keypad pad, final long[] dircost ) {
+		final int K = pad.size( );
+		final int D = dirpad.size( );
+		final int A = dirpad.indexOf( 'A' );
+		final long[] costs = new long[ K * K ];
+		for( int a = 0; a < K; a++ ) {
+			for( int b = 0; b < K; b++ ) {
+				// find the cheapest of all instruction sequences for the move
+				long best = Long.MAX_VALUE;
+				for( int m = 0; m < pad.getMoveCount( a, b ); m++ ) {
+					final String p = pad.getMove( a, b, m );
+					
+					// the robot starts at 'A', types the sequence and confirms with 'A'
+					long cost = 0;
+					int prev = A;
+					for( int i = 0; i <= p.length( ); i++ ) {
+						final int next = i < p.length( ) ? dirpad.indexOf( p.charAt( i ) ) : A;
+						cost = add( cost, dircost[prev * D + next] );
+						prev = next;
+					}
+					best = Math.min( best, cost );
+				}
+				costs[a * K + b] = best;
+			}
+		}
+		return costs;
+	}
+	
+	/**
+	 * Adds two non-negative costs, capping the result at Long.MAX_VALUE
+	 * 
+	 * @param a The first cost
+	 * @param b The second cost
+	 * @return The sum or Long.MAX_VALUE if it does not fit in a long
+	 */
+	private static long add( final long a, final long b ) {
+		final long sum = a + b;
+		return sum < 0 ? Long.MAX_VALUE : sum;
 	}
 	
 	/**
 	 * Starts recursive search for the shortest instruction string that, if
 	 * supplied to the first robot, will eventually result in the given code
-	 * being typed into a digipad
+	 * being typed into a digipad. If the cost tables are precomputed, this only
+	 * sums the costs of the moves between the keys of the code
 	 * 
 	 * @param code The code to type
 	 * @return The length of the shortest instruction string that will result in
-	 *   the given code being entered
+	 *   the given code being entered, capped at Long.MAX_VALUE for very long
+	 *   chains of robots when using the cost tables
 	 */
 	public long optimiseEncoding( final String code ) {
-		return optimiseEncoding( code, N );
+		if( T == null || N == 0 ) return optimiseEncoding( code, N );
+		
+		// sum the cost of every move on the keypad, starting at 'A'
+		final int K = keypad.size( );
+		long length = 0;
+		int prev = keypad.indexOf( 'A' );
+		for( int i = 0; i < code.length( ); i++ ) {
+			final int next = keypad.indexOf( code.charAt( i ) );
+			if( next < 0 ) throw new IllegalArgumentException( "Invalid key '" + code.charAt( i ) + "' in code " + code );
+			length = add( length, T[prev * K + next] );
+			prev = next;
+		}
+		return length;
+	}
+	
+	/**
+	 * Encodes a batch of codes in parallel. Every code is encoded exactly as by
+	 * optimiseEncoding, the codes are divided over the threads of the pool in
+	 * ranges
+	 * 
+	 * @param codes The codes to encode
+	 * @param pool The pool to run the encoding on
+	 * @return The encoding lengths of all codes and the sum of their
+	 *   complexities
+	 */
+	public BatchResult encodeAll( final List<String> codes, final ForkJoinPool pool ) {
+		final String[] batch = codes.toArray( new String[ codes.size( ) ] );
+		final long[] lengths = new long[ batch.length ];
+		
+		// a single code is cheap to encode with the cost tables, so keep the
+		// ranges large enough to make forking worth it
+		final int grain = Math.max( 16, batch.length / (pool.getParallelism( ) * 16) );
+		final long complexity = pool.invoke( new BatchEncoder( batch, lengths, 0, batch.length, grain ) );
+		return new BatchResult( lengths, complexity );
+	}
+	
+	/**
+	 * Determines the numeric value of a code, which is the number formed by the
+	 * digits before its first non-digit key
+	 * 
+	 * @param code The code
+	 * @return The numeric value of the code
+	 */
+	public static long getNumericValue( final String code ) {
+		long value = 0;
+		for( int i = 0; i < code.length( ) && Character.isDigit( code.charAt( i ) ); i++ )
+			value = value * 10 + (code.charAt( i ) - '0');
+		return value;
 	}
 	
 	/**
@@ -90,7 +264,7 @@ public class RobotController {
 
 			// find the shortest encoding for this part
 			long shortest = Long.MAX_VALUE;
-			for( final String m : encodeMoves( part ) ) {
+			for( final String m : encodeMoves( part, depth == N ? keypad : dirpad ) ) {
 				final long l = optimiseEncoding( m, depth - 1 );				
 				if( l < shortest ) shortest = l;
 			}
@@ -114,9 +288,10 @@ public class RobotController {
 	 * function assumes that the robot starts at the 'A' position.
 	 * 
 	 * @param instructions The instruction string to encode
+	 * @param pad The keypad on which the instructions are entered
 	 * @return The encoded instruction string
 	 */
-	protected List<String> encodeMoves( final String instructions ) {
+	protected List<String> encodeMoves( final String instructions, final Keypad pad ) {
 		// process every pair of (from, to) moves and encode it. Start with an
 		// empty list of all possible encodings
 		List<String> moves = new ArrayList<>( );
@@ -124,19 +299,20 @@ public class RobotController {
 		for( int i = 0; i < instructions.length( ); i++ ) {
 			// get the (from, to) pair. For the first move use (A, move) as the pair
 			// so that we start from 'A' always
-			final char from = i == 0 ? 'A' : instructions.charAt( i - 1 );
-			final char to = instructions.charAt( i );
+			final int from = pad.indexOf( i == 0 ? 'A' : instructions.charAt( i - 1 ) );
+			final int to = pad.indexOf( instructions.charAt( i ) );
+			if( to < 0 ) throw new IllegalArgumentException( "Invalid key '" + instructions.charAt( i ) + "' in instructions " + instructions );
 			
 			// get all encodings of this pair and produce Cartesian product of the
 			// current possible instruction encodings with all possible ways to
-			// encode this pair. We use a global hashmap for the latter
+			// encode this pair. We use the compiled move table of the keypad for the
+			// latter
 			final List<String> newmoves = new ArrayList<>( );
-			final List<String> M2 = E.get( from + "|" + to );
 			for( final String m1 : moves )
-				for( final String m2: M2 )
+				for( int m = 0; m < pad.getMoveCount( from, to ); m++ )
 					// add sequence and always end on an 'A' to actually submit the
 					// instructions to the next robot
-					newmoves.add( m1 + m2 + "A" );
+					newmoves.add( m1 + pad.getMove( from, to, m ) + "A" );
 			
 			// continue next iteration from the result of the Cartesian product
 			moves = newmoves;
@@ -148,57 +324,100 @@ public class RobotController {
 	}
 
 	/**
-	 * Builds move tables for the given keypad layout such that for every pair of
-	 * characters it holds all possible instruction strings that will produce
-	 * exactly that move.
-	 * 
-	 * Will store the result in the global hash table
-	 * 
-	 * @param keypad The moves that can be instructed via the keypad
+	 * The result of encoding a batch of codes
 	 */
-	private void buildMoveTable( final String[] moves ) {
-		// convert keypad layout into grid
-		final List<String> layout = new ArrayList<>( moves.length );
-		for( final String m : moves ) layout.add( m );
-		final CoordGrid<Character> digits = CoordGrid.fromCharGrid( layout, '.' );
-		
-		// then for every combination of moves generate the corresponding 
-		// instruction string to perform that move
-		for( final Coord2D a : digits.getKeys( ) ) {
-			for( final Coord2D b : digits.getKeys( ) ) {
-				final String key = "" + digits.get( a ) + "|" + digits.get( b );
-				E.put( key, new ArrayList<>( ) );
-				buildMoveTable( digits, a, b, key, "" );
-			}
+	public static class BatchResult {
+		/** The encoding length of every code, in the order of the batch */
+		protected final long[] lengths;
+		
+		/** The sum of the complexities of all codes */
+		protected final long complexity;
+		
+		/**
+		 * Creates a new batch result
+		 * 
+		 * @param lengths The encoding length of every code
+		 * @param complexity The sum of complexities
+		 */
+		protected BatchResult( final long[] lengths, final long complexity ) {
+			this.lengths = lengths;
+			this.complexity = complexity;
+		}
+		
+		/**
+		 * @param index The index of the code in the batch
+		 * @return The length of the shortest instruction string for the code
+		 */
+		public long getLength( final int index ) {
+			return lengths[index];
+		}
+		
+		/** @return The encoding lengths of all codes, in the order of the batch */
+		public long[] getLengths( ) {
+			return lengths.clone( );
+		}
+		
+		/** @return The sum of numeric code values times their encoding length */
+		public long getComplexity( ) {
+			return complexity;
 		}
 	}
 	
 	/**
-	 * Recursive function that generates every unique instruction sequence to
-	 * move from the instruction at 'from' to the instruction at 'to' on the
-	 * keypad
-	 * 
-	 * @param keypad The keypad layout as a 2D grid
-	 * @param from The starting position of the move
-	 * @param to The target position to move to
-	 * @param key The key to store each of the possible sequence under in the
-	 *   global instruction hash table
-	 * @param moves The moves taken so far
+	 * Task that encodes a range of codes of a batch, splitting the range until
+	 * it is small enough to be encoded on a single thread
 	 */
-	private void buildMoveTable( final CoordGrid<Character> keypad, final Coord2D from, final Coord2D to, final String key, final String moves ) {
-		// illegal move?
-		if( !keypad.hasValue( from ) ) return;
-		
-		// are we there yet?
-		if( from.equals( to ) ) {
-			E.get( key ).add( moves );
-			return;
+	private class BatchEncoder extends RecursiveTask<Long> {
+		/** Serial version UID */
+		private static final long serialVersionUID = 1L;
+		
+		/** The codes of the batch */
+		protected final String[] codes;
+		
+		/** The array to store the encoding length of every code in */
+		protected final long[] lengths;
+		
+		/** The range of codes to encode */
+		protected final int from, to;
+		
+		/** The range size below which it is no longer split */
+		protected final int grain;
+		
+		/**
+		 * Creates a new encoding task
+		 * 
+		 * @param codes The codes of the batch
+		 * @param lengths The array to store the encoding lengths in
+		 * @param from The index of the first code to encode
+		 * @param to The index after the last code to encode
+		 * @param grain The range size below which it is no longer split
+		 */
+		public BatchEncoder( final String[] codes, final long[] lengths, final int from, final int to, final int grain ) {
+			this.codes = codes;
+			this.lengths = lengths;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
 		}
 		
-		// nope, move towards the specified target command by moving one unit along
-		// the x or y axis, or both
-		final Coord2D diff = from.diff( to );
-		if( diff.x != 0 ) buildMoveTable( keypad, from.move( diff.x > 0 ? 1 : -1, 0 ), to, key, moves + (diff.x > 0 ? ">" : "<" ) );
-		if( diff.y != 0 ) buildMoveTable( keypad, from.move( 0, diff.y > 0 ? 1 : -1 ), to, key, moves + (diff.y > 0 ? "v" : "^" ) );
+		/** @return The sum of complexities of the codes in the range */
+		@Override
+		protected Long compute( ) {
+			if( to - from <= grain ) {
+				long sum = 0;
+				for( int i = from; i < to; i++ ) {
+					lengths[i] = optimiseEncoding( codes[i] );
+					sum += getNumericValue( codes[i] ) * lengths[i];
+				}
+				return sum;
+			}
+			
+			// split in half, encoding the upper half on this thread
+			final int mid = (from + to) >>> 1;
+			final BatchEncoder lower = new BatchEncoder( codes, lengths, from, mid, grain );
+			lower.fork( );
+			final long upper = new BatchEncoder( codes, lengths, mid, to, grain ).compute( );
+			return upper + lower.join( );
+		}
 	}
 }
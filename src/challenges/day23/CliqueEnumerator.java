@@ -0,0 +1,208 @@
+package challenges.day23;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Enumerates all cliques of a given size k in a network and streams them to a
+ * consumer, one at a time, without ever holding more than the clique that is
+ * being built.
+ *
+ * The nodes are ranked by degree, ties broken by id, and every clique is only
+ * generated from its lowest ranked node, the root. The candidates of a root
+ * are its neighbours that rank higher. The clique is extended in the order of
+ * the candidate list: after adding a candidate, the candidates for the next
+ * node are those later in the list that are connected to it. Every clique
+ * therefore has exactly one way to be built and no duplicates occur. Only a
+ * candidate array per clique level is kept, so the memory use is O(k * d) for
+ * a largest degree d, no matter how many cliques exist.
+ *
+ * The roots are independent of each other, which allows the enumeration to be
+ * divided over threads by ranges of root nodes.
+ */
+public class CliqueEnumerator {
+	/** The network to enumerate the cliques of */
+	protected final Network network;
+
+	/**
+	 * Creates a new clique enumerator
+	 *
+	 * @param network The network to enumerate the cliques of
+	 */
+	public CliqueEnumerator( final Network network ) {
+		this.network = network;
+	}
+
+	/**
+	 * Enumerates all cliques of the given size on the current thread
+	 *
+	 * @param k The clique size
+	 * @param consumer The consumer that is given the node ids of every clique,
+	 *   null to only count the cliques. The array is reused for the next clique,
+	 *   so it must be copied if it is to be kept
+	 * @return The number of cliques
+	 */
+	public long enumerate( final int k, final Consumer<int[]> consumer ) {
+		if( k < 1 ) throw new IllegalArgumentException( "Invalid clique size " + k );
+		final int n = network.size( );
+		return new RootRange( k, consumer, 0, n, n ).compute( );
+	}
+
+	/**
+	 * Enumerates all cliques of the given size, dividing the root nodes over
+	 * the threads of the pool
+	 *
+	 * @param k The clique size
+	 * @param consumer The consumer that is given the node ids of every clique,
+	 *   null to only count the cliques. It is called from multiple threads at
+	 *   once and every thread reuses its array for the next clique, so it must
+	 *   be copied if it is to be kept
+	 * @param pool The pool to enumerate the root ranges on
+	 * @return The number of cliques
+	 */
+	public long enumerate( final int k, final Consumer<int[]> consumer, final ForkJoinPool pool ) {
+		if( k < 1 ) throw new IllegalArgumentException( "Invalid clique size " + k );
+
+		// ranges large enough to make forking worth it, small enough to balance
+		// the uneven work per root
+		final int n = network.size( );
+		final int grain = Math.max( 256, n / (pool.getParallelism( ) * 16) );
+		return pool.invoke( new RootRange( k, consumer, 0, n, grain ) );
+	}
+
+	/**
+	 * Determines whether a node ranks before another node
+	 *
+	 * @param u The first node
+	 * @param v The second node
+	 * @return True if the first node has the lower degree, or the lower id if
+	 *   both degrees are equal
+	 */
+	private boolean ranksBefore( final int u, final int v ) {
+		final int du = network.degree( u );
+		final int dv = network.degree( v );
+		return du < dv || (du == dv && u < v);
+	}
+
+	/**
+	 * Task that enumerates the cliques of a range of root nodes, splitting the
+	 * range until it is small enough to be enumerated on a single thread
+	 */
+	private class RootRange extends RecursiveTask<Long> {
+		/** Serial version UID */
+		private static final long serialVersionUID = 1L;
+
+		/** The clique size */
+		protected final int k;
+
+		/** The consumer of the cliques, null to only count them */
+		protected final Consumer<int[]> consumer;
+
+		/** The range of root nodes */
+		protected final int from, to;
+
+		/** The range size below which it is no longer split */
+		protected final int grain;
+
+		/** The clique being built */
+		private int[] clique;
+
+		/** The candidate nodes for every clique level */
+		private int[][] cand;
+
+		/**
+		 * Creates a new enumeration task
+		 *
+		 * @param k The clique size
+		 * @param consumer The consumer of the cliques, null to only count them
+		 * @param from The first root node of the range
+		 * @param to The node after the last root node of the range
+		 * @param grain The range size below which it is no longer split
+		 */
+		public RootRange( final int k, final Consumer<int[]> consumer, final int from, final int to, final int grain ) {
+			this.k = k;
+			this.consumer = consumer;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		/** @return The number of cliques with a root in the range */
+		@Override
+		protected Long compute( ) {
+			if( to - from > grain ) {
+				// split in half, enumerating the upper half on this thread
+				final int mid = (from + to) >>> 1;
+				final RootRange lower = new RootRange( k, consumer, from, mid, grain );
+				lower.fork( );
+				final long upper = new RootRange( k, consumer, mid, to, grain ).compute( );
+				return upper + lower.join( );
+			}
+
+			clique = new int[ k ];
+			cand = new int[ k ][];
+			long count = 0;
+			for( int u = from; u < to; u++ ) {
+				clique[0] = u;
+				if( k == 1 ) {
+					if( consumer != null ) consumer.accept( clique );
+					count++;
+					continue;
+				}
+
+				// the candidates of the root are its higher ranked neighbours
+				int c = 0;
+				for( int j = network.start( u ); j < network.end( u ); j++ )
+					if( ranksBefore( u, network.getTarget( j ) ) ) c++;
+				if( c < k - 1 ) continue;
+				if( cand[1] == null || cand[1].length < c ) {
+					for( int d = 1; d < k; d++ ) cand[d] = new int[ Math.max( c, 16 ) ];
+				}
+				c = 0;
+				for( int j = network.start( u ); j < network.end( u ); j++ ) {
+					final int v = network.getTarget( j );
+					if( ranksBefore( u, v ) ) cand[1][c++] = v;
+				}
+				count += extend( 1, c );
+			}
+			return count;
+		}
+
+		/**
+		 * Extends the clique with every candidate of the level in turn, limiting
+		 * the candidates of the next level to the later candidates that are
+		 * connected to it
+		 *
+		 * @param depth The number of nodes in the clique
+		 * @param c The number of candidates for this level
+		 * @return The number of cliques found
+		 */
+		private long extend( final int depth, final int c ) {
+			final int[] C = cand[depth];
+			if( depth == k - 1 ) {
+				// every candidate completes a clique
+				if( consumer != null ) {
+					for( int i = 0; i < c; i++ ) {
+						clique[depth] = C[i];
+						consumer.accept( clique );
+					}
+				}
+				return c;
+			}
+
+			// stop as soon as too few candidates are left to complete the clique
+			final int[] N = cand[depth + 1];
+			long count = 0;
+			for( int i = 0; i + (k - depth) <= c; i++ ) {
+				final int v = C[i];
+				clique[depth] = v;
+				int nc = 0;
+				for( int j = i + 1; j < c; j++ )
+					if( network.isConnected( v, C[j] ) ) N[nc++] = C[j];
+				if( nc >= k - depth - 1 ) count += extend( depth + 1, nc );
+			}
+			return count;
+		}
+	}
+}
@@ -1,23 +1,16 @@
 package challenges.day23;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.Stack;
-
-import aocutil.graph.Edge;
-import aocutil.graph.Graph;
-import aocutil.graph.Node;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * LAN Party at the Easter BUnny HQ
  */
 public class LANParty {
-	/** The graph of connected computers */
-	protected final Graph network;
+	/** The network of connected computers */
+	protected final Network network;
 
 	/**
 	 * Creates a new LAN Party network using the interface connections specified
@@ -26,142 +19,90 @@ public class LANParty {
 	 * @param connections The connections between computers in the network
 	 */
 	public LANParty( final List<String> connections ) {
-		network = new Graph( );
-		for( final String conn : connections ) {
-			final String[] iface = conn.split( "-" );
-			final Node n1 = network.addNode( iface[0] );
-			final Node n2 = network.addNode( iface[1] );
-			network.addEdge( new Edge( n1, n2 ) );
-		}
+		network = new Network( connections );
 	}
 	
 	/**
-	 * Uses k-clique algorithm to find all connected 3-cliques in the LAN party
-	 * network topology graph, then filters out those cliques that do not have at
-	 * least one computer name starting with the specified prefix
+	 * Counts all connected 3-cliques in the LAN party network topology that have
+	 * at least one computer name starting with the specified prefix, see
+	 * TriangleCounter
 	 * 
 	 * @param startswith The prefix that at least one computer in the 3-clique
 	 *   must have for it to be counted
-	 * @return The number of unique k-cliques that have at least one node label
+	 * @return The number of unique 3-cliques that have at least one node label
 	 *   starting with the specified prefix
 	 */
 	public long countConnectedTriplets( final String startswith ) {
-		// get all connected cliques of size k
-		final List<Set<Node>> T = getCliques( 3 );
-		
-		// count only those that have a node starting with the specified prefix
-		long count = 0;
-		for( final Set<Node> triplet : T )
-			for( final Node n : triplet )
-				if( n.getLabel( ).startsWith( startswith ) ) {
-					count++;
-					break;
-				}
-		return count;
+		return new TriangleCounter( network ).count( matching( startswith ) );
 	}
 	
 	/**
-	 * Uses k-clique algorithm to find the largest possible connected subgraph in
-	 * the network
+	 * Counts all connected 3-cliques in the LAN party network that have at
+	 * least one computer name starting with the specified prefix, by counting
+	 * the triangles of the network in parallel, see TriangleCounter
 	 * 
-	 * @return The largest connected subgraph as a comma-separated string of its
-	 *   nodes
+	 * @param startswith The prefix that at least one computer in the 3-clique
+	 *   must have for it to be counted
+	 * @param pool The pool to count the triangles on
+	 * @return The number of 3-cliques that have at least one node label
+	 *   starting with the specified prefix
 	 */
-	public String getPassword( ) {
-		// find largest possible clique in the network and return it as sorted
-		// string of its computer names
-		return sorted( getCliques( network.size( ) ).get( 0 ) );
+	public long countConnectedTriplets( final String startswith, final ForkJoinPool pool ) {
+		return new TriangleCounter( network ).count( matching( startswith ), pool );
 	}
 	
 	/**
-	 * Simple implementation of the k-clique algorithm. The algorithm iteratively
-	 * generates new k+1 cliques by finding all extensions of the k-cliques with
-	 * new nodes such that the new set of nodes is still fully connected.
+	 * Counts all connected k-cliques in the LAN party network that have at
+	 * least one computer name starting with the specified prefix, by streaming
+	 * the cliques from a CliqueEnumerator in parallel
 	 * 
-	 * @param maxsize The maximum clique size to search for, use a high value to
-	 *   find the largest possible clique
-	 * @return The list that holds all cliques of size k in which k <= maxsize.
+	 * @param size The number of computers in a clique
+	 * @param startswith The prefix that at least one computer in the clique
+	 *   must have for it to be counted
+	 * @param pool The pool to enumerate the cliques on
+	 * @return The number of k-cliques that have at least one node label
+	 *   starting with the specified prefix
 	 */
-	private List<Set<Node>> getCliques( final int maxsize ) {
-		// iteratively build set of connected graphs from individual nodes
-		final Map<String, Set<Node>> C = new HashMap<>( );
-		
-		// initialise this map with single nodes
-		for( final Node n : network.getNodes( ) ) {
-			final Set<Node> ns = new HashSet<>( );
-			ns.add( n );
-			C.put( n.toString( ), ns );
-		}
-		
-		// then iteratively generate connected graphs of one size bigger
-		final Stack<String> explore = new Stack<>( );
-		explore.addAll( C.keySet( ) );
-		
-		// keep searching until we end up with only the maximum sized cliques
-		final List<Set<Node>> lastresult = new ArrayList<>( );
-		int size = 1;
-		while( !explore.isEmpty( ) && (++size <= maxsize + 1) ) {
-			lastresult.clear( );
-			
-			while( !explore.isEmpty( ) ) {
-				// extend the next k-clique into k+1-cliques
-				final String key = explore.pop( );
-				final Set<Node> nodes = C.get( key );
-				lastresult.add( C.remove( key ) );
-				
-				// only search in the neighbours of any of the nodes already in the
-				// connected graph, not over all nodes
-				for( final Node n : nodes.iterator( ).next( ).getNeighbours( ) ) {
-					// already in the clique? skip it
-					if( nodes.contains( n ) ) continue;
-					
-					// check if the neighbour is connected to all other nodes in the
-					// clique
-					boolean connected = true;
-					for( final Node n2 : nodes ) {
-						connected &= n.getNeighbours( ).contains( n2 );
-						if( !connected ) break;
-					}
-					if( !connected ) continue;
-					
-					// node can be added to create a fully connected graph, create the
-					// new set and add to the map if not already present
-					final Set<Node> newnodes = new HashSet<>( nodes );
-					newnodes.add( n );
-					final String newkey = sorted( newnodes );
-					if( C.containsKey( newkey ) ) continue;
-					
-					// add the set key to expand in the next round and 
-					C.put( newkey, newnodes );
-				}				
-			}
-			explore.addAll( C.keySet( ) );
-		}
-		
-		// return nodes that form the largest cliques
-		return lastresult;
+	public long countConnectedCliques( final int size, final String startswith, final ForkJoinPool pool ) {
+		final boolean[] match = matching( startswith );
+		final LongAdder count = new LongAdder( );
+		new CliqueEnumerator( network ).enumerate( size, clique -> {
+			for( final int id : clique )
+				if( match[id] ) {
+					count.increment( );
+					break;
+				}
+		}, pool );
+		return count.sum( );
 	}
-
+	
 	/**
-	 * Generates a comma-separated string of the labels of the nodes in the set,
-	 * ordered alphabetically
+	 * Determines which computers have a name that starts with the prefix, such
+	 * that the filter can be applied while counting
 	 * 
-	 * @param nodes The set of nodes to convert into sorted string
-	 * @return The string of node labels, ordered alphabetically and separated by
-	 *   commas
+	 * @param startswith The prefix
+	 * @return Per computer id whether its name starts with the prefix
 	 */
-	private String sorted( final Set<Node> nodes ) {
-		// empty set
-		if( nodes.isEmpty( ) ) return "";
-		
-		// nope, sort the nodes based upon label
-		final List<Node> sorted = new ArrayList<>( nodes );
-		sorted.sort( (a, b) -> String.CASE_INSENSITIVE_ORDER.compare( a.getLabel( ), b.getLabel( ) ) );
-		
-		// and construct the output string
-		final StringBuilder sb = new StringBuilder( );
-		sb.append( sorted.get( 0 ).getLabel( ) );
-		for( int i = 1; i < sorted.size( ); i++ ) sb.append( "," + sorted.get( i ).getLabel( ) );
-		return sb.toString( );
+	private boolean[] matching( final String startswith ) {
+		final boolean[] match = new boolean[ network.size( ) ];
+		for( int i = 0; i < match.length; i++ ) match[i] = network.getName( i ).startsWith( startswith );
+		return match;
+	}
+	
+	/**
+	 * Finds the largest possible connected subgraph in the network using the
+	 * Bron-Kerbosch algorithm, see MaxClique
+	 * 
+	 * @return The largest connected subgraph as a comma-separated string of its
+	 *   nodes
+	 */
+	public String getPassword( ) {
+		// find largest possible clique in the network and return it as sorted
+		// string of its computer names
+		final int[] clique = new MaxClique( network ).find( );
+		final String[] labels = new String[ clique.length ];
+		for( int i = 0; i < clique.length; i++ ) labels[i] = network.getName( clique[i] );
+		Arrays.sort( labels, String.CASE_INSENSITIVE_ORDER );
+		return String.join( ",", labels );
 	}
 }
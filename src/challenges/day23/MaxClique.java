@@ -0,0 +1,303 @@
+package challenges.day23;
+
+import java.util.Arrays;
+
+/**
+ * Finds a maximum clique in a network with the Bron-Kerbosch algorithm, using
+ * Tomita pivoting and a degeneracy ordering of the nodes.
+ *
+ * The nodes are processed in degeneracy order, i.e. by repeatedly taking the
+ * node with the fewest remaining neighbours. Every clique is then searched for
+ * from the first of its nodes in that order, within the neighbourhood of that
+ * node only: the neighbours later in the order are the candidates, those
+ * earlier in the order are excluded. An excluded neighbour that is not
+ * connected to any candidate can never be part of a clique with them, so only
+ * the excluded neighbours connected to at least one candidate are kept.
+ *
+ * For every such subproblem the candidates and kept excluded nodes get dense
+ * local ids, the candidates first. The candidate set and the adjacency of every
+ * local node to the candidates are long[] bitsets over the candidates only, the
+ * excluded set is a bitset over the candidates and kept excluded nodes. The
+ * number of candidates is at most the degeneracy of the network, so a
+ * subproblem takes O(degeneracy * degree) bits rather than O(degree^2).
+ *
+ * Branches that cannot lead to a larger clique than the best one found so far
+ * are cut off.
+ */
+public class MaxClique {
+	/** The network to search */
+	protected final Network network;
+
+	/** The local id of every node in the current neighbourhood, -1 if it is not
+	 * part of it and -2 if it is an excluded neighbour without a local id yet */
+	private final int[] local;
+
+	/** The nodes of the current subproblem by local id */
+	private int[] nodes;
+
+	/** The number of candidates of the current subproblem, the local ids below
+	 * this are candidates and those from it are excluded nodes */
+	private int p;
+
+	/** The adjacency bitsets of every local node to the candidates */
+	private long[][] nbits;
+
+	/** The local ids of the clique being built */
+	private int[] R;
+
+	/** The best clique found so far */
+	protected int[] best;
+
+	/**
+	 * Creates a new maximum clique search
+	 *
+	 * @param network The network to search
+	 */
+	public MaxClique( final Network network ) {
+		this.network = network;
+		this.local = new int[ network.size( ) ];
+		Arrays.fill( local, -1 );
+		this.best = new int[ 0 ];
+	}
+
+	/**
+	 * Finds a clique of maximum size
+	 *
+	 * @return The ids of the nodes in the clique
+	 */
+	public int[] find( ) {
+		final int n = network.size( );
+		final int[] order = degeneracyOrder( );
+		final int[] pos = new int[ n ];
+		for( int i = 0; i < n; i++ ) pos[order[i]] = i;
+		best = n > 0 ? new int[] { 0 } : new int[ 0 ];
+
+		int[] H = new int[ 16 ];
+		for( final int v : order ) {
+			// count the candidates, the neighbours that come later in the order, and
+			// skip the node if it cannot be part of a larger clique
+			final int vs = network.start( v );
+			final int ve = network.end( v );
+			p = 0;
+			for( int j = vs; j < ve; j++ ) if( pos[network.getTarget( j )] > pos[v] ) p++;
+			if( p + 1 <= best.length ) continue;
+
+			// give the candidates the first local ids and mark the excluded
+			// neighbours as part of the neighbourhood without an id
+			final int D = ve - vs;
+			if( H.length < D ) H = new int[ D ];
+			nodes = new int[ D ];
+			int pi = 0;
+			for( int j = vs; j < ve; j++ ) {
+				final int w = network.getTarget( j );
+				if( pos[w] > pos[v] ) {
+					nodes[pi] = w;
+					local[w] = pi++;
+				} else local[w] = -2;
+			}
+
+			// give local ids to the excluded neighbours connected to a candidate
+			int xi = p;
+			for( int i = 0; i < p; i++ ) {
+				final int h = connected( nodes[i], vs, ve, H );
+				for( int j = 0; j < h; j++ )
+					if( local[H[j]] == -2 ) {
+						nodes[xi] = H[j];
+						local[H[j]] = xi++;
+					}
+			}
+
+			// build the adjacency bitsets of all local nodes to the candidates from
+			// the connections of the candidates
+			final int W = (p + 63) >>> 6;
+			nbits = new long[ xi ][ W ];
+			for( int i = 0; i < p; i++ ) {
+				final int h = connected( nodes[i], vs, ve, H );
+				for( int j = 0; j < h; j++ ) {
+					final int l = local[H[j]];
+					nbits[l][i >>> 6] |= 1L << i;
+				}
+			}
+
+			final long[] P = new long[ W ];
+			final long[] X = new long[ (xi + 63) >>> 6 ];
+			for( int i = 0; i < p; i++ ) P[i >>> 6] |= 1L << i;
+			for( int i = p; i < xi; i++ ) X[i >>> 6] |= 1L << i;
+
+			R = new int[ p ];
+			expand( v, P, X, 0 );
+
+			for( int j = vs; j < ve; j++ ) local[network.getTarget( j )] = -1;
+		}
+		return best.clone( );
+	}
+
+	/**
+	 * Collects the neighbours of a node that are part of the current
+	 * neighbourhood, by going over the neighbours of the node or by testing the
+	 * nodes of the neighbourhood, whichever is fewer
+	 *
+	 * @param c The node
+	 * @param vs The index of the first neighbour of the root node
+	 * @param ve The index after the last neighbour of the root node
+	 * @param H The array to store the neighbours in
+	 * @return The number of neighbours stored
+	 */
+	private int connected( final int c, final int vs, final int ve, final int[] H ) {
+		int h = 0;
+		if( network.degree( c ) <= ve - vs ) {
+			for( int j = network.start( c ); j < network.end( c ); j++ ) {
+				final int w = network.getTarget( j );
+				if( local[w] != -1 ) H[h++] = w;
+			}
+		} else {
+			for( int j = vs; j < ve; j++ ) {
+				final int w = network.getTarget( j );
+				if( w != c && network.isConnected( c, w ) ) H[h++] = w;
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * Recursively extends the clique of the root node and the local nodes in R
+	 * with candidates, choosing a pivot with the most candidate neighbours and
+	 * only branching on the candidates that are not adjacent to it
+	 *
+	 * @param root The node of which the neighbourhood is searched
+	 * @param P The candidate bitset, over the candidates
+	 * @param X The excluded bitset, over all local nodes
+	 * @param depth The number of local nodes in R
+	 */
+	private void expand( final int root, final long[] P, final long[] X, final int depth ) {
+		int pc = count( P );
+		if( pc == 0 ) {
+			// a maximal clique, keep it if it is larger than the best one so far
+			if( count( X ) == 0 && depth + 1 > best.length ) {
+				best = new int[ depth + 1 ];
+				best[0] = root;
+				for( int i = 0; i < depth; i++ ) best[i + 1] = nodes[R[i]];
+			}
+			return;
+		}
+		if( depth + 1 + pc <= best.length ) return;
+
+		// choose the pivot from P and X that has the most neighbours in P
+		final int W = P.length;
+		int pivot = -1;
+		int pivotcount = -1;
+		for( int w = 0; w < X.length; w++ ) {
+			long bits = X[w] | (w < W ? P[w] : 0);
+			while( bits != 0 ) {
+				final int u = (w << 6) + Long.numberOfTrailingZeros( bits );
+				bits &= bits - 1;
+				final int c = countAnd( P, nbits[u] );
+				if( c > pivotcount ) {
+					pivot = u;
+					pivotcount = c;
+				}
+			}
+		}
+
+		// branch on all candidates that are not neighbours of the pivot
+		final long[] pn = nbits[pivot];
+		for( int w = 0; w < W; w++ ) {
+			long bits = P[w] & ~pn[w];
+			while( bits != 0 ) {
+				final int u = (w << 6) + Long.numberOfTrailingZeros( bits );
+				bits &= bits - 1;
+
+				// the excluded nodes that remain are those with a bit for u
+				final long[] P2 = new long[ W ];
+				final long[] X2 = new long[ X.length ];
+				final long[] un = nbits[u];
+				for( int i = 0; i < W; i++ ) P2[i] = P[i] & un[i];
+				final long ub = 1L << u;
+				for( int i = 0; i < X.length; i++ ) {
+					long xbits = X[i];
+					while( xbits != 0 ) {
+						final int x = (i << 6) + Long.numberOfTrailingZeros( xbits );
+						xbits &= xbits - 1;
+						if( (nbits[x][w] & ub) != 0 ) X2[i] |= 1L << x;
+					}
+				}
+				R[depth] = u;
+				expand( root, P2, X2, depth + 1 );
+
+				// move the candidate to the excluded set
+				P[w] &= ~ub;
+				X[w] |= ub;
+				if( depth + 1 + --pc <= best.length ) return;
+			}
+		}
+	}
+
+	/**
+	 * Computes the degeneracy order of the nodes by repeatedly removing a node
+	 * of the lowest remaining degree, using buckets of nodes by degree
+	 *
+	 * @return The node ids in degeneracy order
+	 */
+	protected int[] degeneracyOrder( ) {
+		final int n = network.size( );
+		int maxdeg = 0;
+		final int[] deg = new int[ n ];
+		for( int v = 0; v < n; v++ ) {
+			deg[v] = network.degree( v );
+			maxdeg = Math.max( maxdeg, deg[v] );
+		}
+
+		// sort the nodes by degree into buckets, keeping the start of each bucket
+		final int[] start = new int[ maxdeg + 2 ];
+		for( int v = 0; v < n; v++ ) start[deg[v] + 1]++;
+		for( int d = 1; d <= maxdeg + 1; d++ ) start[d] += start[d - 1];
+		final int[] order = new int[ n ];
+		final int[] pos = new int[ n ];
+		final int[] fill = start.clone( );
+		for( int v = 0; v < n; v++ ) {
+			pos[v] = fill[deg[v]]++;
+			order[pos[v]] = v;
+		}
+
+		// take the nodes in order, moving every neighbour of a higher degree to the
+		// front of its bucket and then into the bucket of one degree lower
+		for( int i = 0; i < n; i++ ) {
+			final int v = order[i];
+			for( int j = network.start( v ); j < network.end( v ); j++ ) {
+				final int w = network.getTarget( j );
+				if( deg[w] <= deg[v] ) continue;
+				final int d = deg[w];
+				final int first = start[d];
+				final int u = order[first];
+				order[first] = w;
+				order[pos[w]] = u;
+				pos[u] = pos[w];
+				pos[w] = first;
+				start[d]++;
+				deg[w]--;
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * @param bits The bitset
+	 * @return The number of bits set
+	 */
+	private static int count( final long[] bits ) {
+		int c = 0;
+		for( final long b : bits ) c += Long.bitCount( b );
+		return c;
+	}
+
+	/**
+	 * @param a The first bitset
+	 * @param b The second bitset
+	 * @return The number of bits set in both
+	 */
+	private static int countAnd( final long[] a, final long[] b ) {
+		int c = 0;
+		for( int i = 0; i < a.length; i++ ) c += Long.bitCount( a[i] & b[i] );
+		return c;
+	}
+}
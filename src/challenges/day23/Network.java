@@ -0,0 +1,162 @@
+package challenges.day23;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, immutable undirected network in compressed sparse row format. Every
+ * node gets a dense integer id in order of first appearance. The neighbours of
+ * all nodes are stored back to back in a single int array, sorted per node,
+ * with an offset array that marks where the neighbours of every node start.
+ * Every connection is stored once for each of its two nodes, so the network
+ * takes 8 bytes per connection plus the offsets and names of the nodes.
+ */
+public class Network {
+	/** The names of the nodes, indexed by id */
+	protected final String[] names;
+
+	/** The index of the first neighbour of every node in the targets array,
+	 * with the total number of neighbour entries as the last element */
+	protected final int[] offsets;
+
+	/** The neighbour ids of all nodes, sorted per node */
+	protected final int[] targets;
+
+	/**
+	 * Builds the network from a list of connections in two passes. The first
+	 * pass assigns the node ids, records the ids of both ends of every
+	 * connection and counts the neighbours of every node, the second fills in
+	 * the neighbours at their offsets from the recorded ids, so that every name
+	 * is only looked up once. Self connections and duplicate connections are
+	 * ignored
+	 *
+	 * @param connections The connections, formatted as "name1-name2"
+	 */
+	public Network( final List<String> connections ) {
+		// assign ids and count the number of neighbours per node
+		final Map<String, Integer> ids = new HashMap<>( );
+		final int[] ends = new int[ 2 * connections.size( ) ];
+		int[] degree = new int[ 16 ];
+		int c = 0;
+		for( final String conn : connections ) {
+			final int sep = separator( conn );
+			for( final String name : new String[] { conn.substring( 0, sep ), conn.substring( sep + 1 ) } ) {
+				Integer id = ids.get( name );
+				if( id == null ) {
+					ids.put( name, id = ids.size( ) );
+					if( id == degree.length ) degree = Arrays.copyOf( degree, id * 2 );
+				}
+				degree[id]++;
+				ends[c++] = id;
+			}
+		}
+
+		final int n = ids.size( );
+		names = new String[ n ];
+		for( final Map.Entry<String, Integer> id : ids.entrySet( ) ) names[id.getValue( )] = id.getKey( );
+		final int[] O = new int[ n + 1 ];
+		for( int i = 0; i < n; i++ ) O[i + 1] = O[i] + degree[i];
+
+		// fill in the neighbours of both nodes of every connection
+		final int[] T = new int[ O[n] ];
+		final int[] fill = Arrays.copyOf( O, n );
+		for( int i = 0; i < ends.length; i += 2 ) {
+			final int a = ends[i];
+			final int b = ends[i + 1];
+			T[fill[a]++] = b;
+			T[fill[b]++] = a;
+		}
+
+		// sort the neighbours of every node, compacting the array if there are
+		// self or duplicate connections to remove
+		int e = 0;
+		for( int i = 0; i < n; i++ ) {
+			final int from = O[i];
+			final int to = O[i + 1];
+			Arrays.sort( T, from, to );
+			O[i] = e;
+			for( int j = from; j < to; j++ )
+				if( T[j] != i && (j == from || T[j] != T[j - 1]) ) T[e++] = T[j];
+		}
+		O[n] = e;
+		offsets = O;
+		targets = e < T.length ? Arrays.copyOf( T, e ) : T;
+	}
+
+	/**
+	 * Finds the separator between the two names of a connection
+	 *
+	 * @param conn The connection string
+	 * @return The index of the separator
+	 */
+	private static int separator( final String conn ) {
+		final int sep = conn.indexOf( '-' );
+		if( sep <= 0 || sep == conn.length( ) - 1 || conn.indexOf( '-', sep + 1 ) >= 0 ) throw new IllegalArgumentException( "Invalid connection: " + conn );
+		return sep;
+	}
+
+	/** @return The number of nodes in the network */
+	public int size( ) {
+		return names.length;
+	}
+
+	/** @return The number of connections in the network */
+	public int getEdgeCount( ) {
+		return targets.length / 2;
+	}
+
+	/**
+	 * @param node The node id
+	 * @return The name of the node
+	 */
+	public String getName( final int node ) {
+		return names[node];
+	}
+
+	/**
+	 * @param node The node id
+	 * @return The number of neighbours of the node
+	 */
+	public int degree( final int node ) {
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/**
+	 * @param node The node id
+	 * @return The index of the first neighbour of the node, see getTarget
+	 */
+	public int start( final int node ) {
+		return offsets[node];
+	}
+
+	/**
+	 * @param node The node id
+	 * @return The index after the last neighbour of the node, see getTarget
+	 */
+	public int end( final int node ) {
+		return offsets[node + 1];
+	}
+
+	/**
+	 * @param index The neighbour index, between start( node ) and end( node )
+	 *   for the neighbours of a node
+	 * @return The id of the neighbour
+	 */
+	public int getTarget( final int index ) {
+		return targets[index];
+	}
+
+	/**
+	 * Tests whether two nodes are connected by binary search in the sorted
+	 * neighbours of the first node
+	 *
+	 * @param a The first node id
+	 * @param b The second node id
+	 * @return True if both nodes are connected
+	 */
+	public boolean isConnected( final int a, final int b ) {
+		return Arrays.binarySearch( targets, offsets[a], offsets[a + 1], b ) >= 0;
+	}
+}
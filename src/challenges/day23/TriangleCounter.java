@@ -0,0 +1,169 @@
+package challenges.day23;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the triangles, i.e. the 3-cliques, of a network by orienting every
+ * edge from the node of lower degree to the node of higher degree (ties broken
+ * by id). Every triangle then has exactly one node from which both other nodes
+ * are reached over an outgoing edge, and it is only counted from there. No
+ * node has more than O(sqrt(m)) outgoing edges, so the total work is
+ * O(m sqrt(m)) for a network of m edges.
+ *
+ * To count the triangles of a node, its outgoing neighbours are marked in a
+ * long[] bitset over all node ids. The outgoing neighbours of each of those
+ * are then intersected with it by a bit test per neighbour. The nodes are
+ * divided into ranges that are counted in parallel, each range with a bitset
+ * of its own.
+ */
+public class TriangleCounter {
+	/** The number of nodes */
+	protected final int n;
+
+	/** The index of the first outgoing neighbour of every node, in the same
+	 * compressed sparse row format as the network */
+	protected final int[] offsets;
+
+	/** The ids of the outgoing neighbours of all nodes */
+	protected final int[] out;
+
+	/**
+	 * Creates a new triangle counter
+	 *
+	 * @param network The network to count the triangles of
+	 */
+	public TriangleCounter( final Network network ) {
+		n = network.size( );
+		offsets = new int[ n + 1 ];
+		out = new int[ network.getEdgeCount( ) ];
+
+		// keep only the neighbours that rank higher than the node itself
+		int e = 0;
+		for( int u = 0; u < n; u++ ) {
+			offsets[u] = e;
+			for( int j = network.start( u ); j < network.end( u ); j++ ) {
+				final int v = network.getTarget( j );
+				if( ranksBefore( network, u, v ) ) out[e++] = v;
+			}
+		}
+		offsets[n] = e;
+	}
+
+	/**
+	 * Determines the direction of the edge between two nodes
+	 *
+	 * @param network The network
+	 * @param u The first node
+	 * @param v The second node
+	 * @return True if the first node has the lower degree, or the lower id if
+	 *   both degrees are equal
+	 */
+	private static boolean ranksBefore( final Network network, final int u, final int v ) {
+		final int du = network.degree( u );
+		final int dv = network.degree( v );
+		return du < dv || (du == dv && u < v);
+	}
+
+	/**
+	 * Counts the triangles that contain at least one matching node on the
+	 * current thread
+	 *
+	 * @param match Per node id whether it matches, null to count all triangles
+	 * @return The number of triangles with at least one matching node
+	 */
+	public long count( final boolean[] match ) {
+		if( match != null && match.length != n ) throw new IllegalArgumentException( "Match array does not cover all nodes" );
+		return new RangeCounter( match, 0, n, n ).compute( );
+	}
+
+	/**
+	 * Counts the triangles that contain at least one matching node
+	 *
+	 * @param match Per node id whether it matches, null to count all triangles
+	 * @param pool The pool to count the node ranges on
+	 * @return The number of triangles with at least one matching node
+	 */
+	public long count( final boolean[] match, final ForkJoinPool pool ) {
+		if( match != null && match.length != n ) throw new IllegalArgumentException( "Match array does not cover all nodes" );
+
+		// ranges large enough to make forking worth it, small enough to balance
+		// the uneven work per node
+		final int grain = Math.max( 1024, n / (pool.getParallelism( ) * 16) );
+		return pool.invoke( new RangeCounter( match, 0, n, grain ) );
+	}
+
+	/**
+	 * Task that counts the triangles of a range of nodes, splitting the range
+	 * until it is small enough to be counted on a single thread
+	 */
+	private class RangeCounter extends RecursiveTask<Long> {
+		/** Serial version UID */
+		private static final long serialVersionUID = 1L;
+
+		/** Per node whether it matches, null if all nodes do */
+		protected final boolean[] match;
+
+		/** The range of nodes to count the triangles of */
+		protected final int from, to;
+
+		/** The range size below which it is no longer split */
+		protected final int grain;
+
+		/**
+		 * Creates a new counting task
+		 *
+		 * @param match Per node whether it matches, null if all nodes do
+		 * @param from The first node of the range
+		 * @param to The node after the last node of the range
+		 * @param grain The range size below which it is no longer split
+		 */
+		public RangeCounter( final boolean[] match, final int from, final int to, final int grain ) {
+			this.match = match;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		/** @return The number of matching triangles counted from the range */
+		@Override
+		protected Long compute( ) {
+			if( to - from > grain ) {
+				// split in half, counting the upper half on this thread
+				final int mid = (from + to) >>> 1;
+				final RangeCounter lower = new RangeCounter( match, from, mid, grain );
+				lower.fork( );
+				final long upper = new RangeCounter( match, mid, to, grain ).compute( );
+				return upper + lower.join( );
+			}
+
+			final long[] bits = new long[ (n + 63) >>> 6 ];
+			long count = 0;
+			for( int u = from; u < to; u++ ) {
+				final int us = offsets[u];
+				final int ue = offsets[u + 1];
+				if( ue - us < 2 ) continue;
+
+				// mark the outgoing neighbours of the node
+				for( int i = us; i < ue; i++ ) bits[out[i] >>> 6] |= 1L << out[i];
+
+				// every outgoing neighbour of an outgoing neighbour that is marked
+				// closes a triangle. Once one of the first two nodes matches, all of
+				// those triangles count, otherwise only those closed by a matching node
+				final boolean mu = match == null || match[u];
+				for( int i = us; i < ue; i++ ) {
+					final int v = out[i];
+					final boolean muv = mu || match[v];
+					for( int j = offsets[v]; j < offsets[v + 1]; j++ ) {
+						final int w = out[j];
+						if( (bits[w >>> 6] & (1L << w)) != 0 && (muv || match[w]) ) count++;
+					}
+				}
+
+				// and clear the marks again for the next node
+				for( int i = us; i < ue; i++ ) bits[out[i] >>> 6] = 0;
+			}
+			return count;
+		}
+	}
+}
@@ -0,0 +1,294 @@
+package challenges.grid;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dense grid of characters that stores its cells in a single flat array. Cells
+ * are addressed by their integer index rather than by coordinate objects, so
+ * that moving through the grid only requires adding a precomputed offset to
+ * the index of a cell.
+ *
+ * The grid is surrounded by a border of OUTSIDE cells. Hence, any cell of the
+ * grid can be moved away from by one step in any direction without bounds
+ * checking, the resulting index will simply hold the OUTSIDE value.
+ */
+public class CharGrid {
+	/** The value of cells that lie outside of the grid */
+	public static final char OUTSIDE = '\0';
+
+	/** The direction indices, ordered clockwise such that turning is simply
+	 * adding (right) or subtracting (left) one modulo 4 */
+	public static final int NORTH = 0, EAST = 1, SOUTH = 2, WEST = 3;
+
+	/** The symbols of the directions, in order of their index */
+	private static final String SYMBOLS = "^>v<";
+
+	/** The width and height of the grid */
+	protected final int width, height;
+
+	/** The length of a single row in the cell array, including border */
+	protected final int stride;
+
+	/** The cell values, row by row and including the border */
+	protected final char[] cells;
+
+	/** The index offsets to move one step in each of the four directions */
+	protected final int[] offsets;
+
+	/** The index offsets of all eight neighbours, starting at north and going
+	 * round clockwise */
+	protected final int[] offsets8;
+
+	/**
+	 * Creates a new grid of the given size of which all cells hold the same
+	 * value
+	 *
+	 * @param width The width of the grid
+	 * @param height The height of the grid
+	 * @param fill The initial value of all cells
+	 */
+	public CharGrid( final int width, final int height, final char fill ) {
+		this.width = width;
+		this.height = height;
+		this.stride = width + 2;
+		this.cells = new char[ stride * (height + 2) ];
+		this.offsets = new int[] { -stride, 1, stride, -1 };
+		this.offsets8 = new int[] { -stride, -stride + 1, 1, stride + 1, stride, stride - 1, -1, -stride - 1 };
+
+		for( int y = 0; y < height; y++ )
+			Arrays.fill( cells, index( 0, y ), index( width, y ), fill );
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param grid The grid to copy
+	 */
+	protected CharGrid( final CharGrid grid ) {
+		this.width = grid.width;
+		this.height = grid.height;
+		this.stride = grid.stride;
+		this.cells = grid.cells.clone( );
+		this.offsets = grid.offsets;
+		this.offsets8 = grid.offsets8;
+	}
+
+	/**
+	 * Reconstructs a grid from a list of strings
+	 *
+	 * @param rows The list of strings, one per row of the grid
+	 * @return The grid
+	 */
+	public static CharGrid fromStrings( final List<String> rows ) {
+		final CharGrid grid = new CharGrid( rows.get( 0 ).length( ), rows.size( ), OUTSIDE );
+		for( int y = 0; y < grid.height; y++ )
+			rows.get( y ).getChars( 0, grid.width, grid.cells, grid.index( 0, y ) );
+		return grid;
+	}
+
+	/** @return A copy of this grid */
+	public CharGrid copy( ) {
+		return new CharGrid( this );
+	}
+
+	/** @return The width of the grid */
+	public int getWidth( ) { return width; }
+
+	/** @return The height of the grid */
+	public int getHeight( ) { return height; }
+
+	/**
+	 * @return The length of the underlying cell array, including the border.
+	 *   Arrays of this size can hold a value for every cell index
+	 */
+	public int size( ) { return cells.length; }
+
+	/**
+	 * Converts a coordinate into its cell index
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The index of the cell
+	 */
+	public int index( final int x, final int y ) {
+		return (y + 1) * stride + x + 1;
+	}
+
+	/**
+	 * @param idx The cell index
+	 * @return The x coordinate of the cell
+	 */
+	public int getX( final int idx ) { return idx % stride - 1; }
+
+	/**
+	 * @param idx The cell index
+	 * @return The y coordinate of the cell
+	 */
+	public int getY( final int idx ) { return idx / stride - 1; }
+
+	/**
+	 * Checks whether a coordinate lies within the grid
+	 *
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return True iff the coordinate is within the grid bounds
+	 */
+	public boolean contains( final int x, final int y ) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+
+	/**
+	 * Checks whether the cell index is part of the grid
+	 *
+	 * @param idx The cell index
+	 * @return True iff the cell holds a value other than OUTSIDE
+	 */
+	public boolean isInside( final int idx ) {
+		return cells[idx] != OUTSIDE;
+	}
+
+	/**
+	 * @param idx The cell index
+	 * @return The value of the cell
+	 */
+	public char get( final int idx ) {
+		return cells[idx];
+	}
+
+	/**
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The value of the cell or OUTSIDE if it is not within the grid
+	 */
+	public char get( final int x, final int y ) {
+		return contains( x, y ) ? cells[ index( x, y ) ] : OUTSIDE;
+	}
+
+	/**
+	 * Sets the value of a cell
+	 *
+	 * @param idx The cell index
+	 * @param value The new value
+	 */
+	public void set( final int idx, final char value ) {
+		cells[idx] = value;
+	}
+
+	/**
+	 * @param dir The direction index
+	 * @return The index offset to move one step in that direction
+	 */
+	public int offset( final int dir ) {
+		return offsets[dir];
+	}
+
+	/** @return A copy of the offsets of all eight neighbours of a cell */
+	public int[] getOffsets8( ) {
+		return offsets8.clone( );
+	}
+
+	/**
+	 * Determines the index of the neighbouring cell in the given direction
+	 *
+	 * @param idx The cell index
+	 * @param dir The direction to move in
+	 * @return The index of the neighbour
+	 */
+	public int move( final int idx, final int dir ) {
+		return idx + offsets[dir];
+	}
+
+	/**
+	 * Determines the Manhattan distance between two cells
+	 *
+	 * @param a The first cell index
+	 * @param b The second cell index
+	 * @return The Manhattan distance
+	 */
+	public int distance( final int a, final int b ) {
+		return Math.abs( getX( a ) - getX( b ) ) + Math.abs( getY( a ) - getY( b ) );
+	}
+
+	/**
+	 * Finds the first cell that holds the value, scanning row by row
+	 *
+	 * @param value The value to search
+	 * @return The cell index or -1 if not found
+	 */
+	public int find( final char value ) {
+		for( int y = 0; y < height; y++ )
+			for( int i = index( 0, y ); i < index( width, y ); i++ )
+				if( cells[i] == value ) return i;
+		return -1;
+	}
+
+	/**
+	 * Finds all cells that hold the value
+	 *
+	 * @param value The value to search
+	 * @return The indices of all cells with that value, in row order
+	 */
+	public int[] findAll( final char value ) {
+		final int[] found = new int[ count( value ) ];
+		int n = 0;
+		for( int y = 0; y < height; y++ )
+			for( int i = index( 0, y ); i < index( width, y ); i++ )
+				if( cells[i] == value ) found[n++] = i;
+		return found;
+	}
+
+	/**
+	 * Counts the cells that hold the value
+	 *
+	 * @param value The value to count
+	 * @return The number of cells with that value
+	 */
+	public int count( final char value ) {
+		int count = 0;
+		for( int y = 0; y < height; y++ )
+			for( int i = index( 0, y ); i < index( width, y ); i++ )
+				if( cells[i] == value ) count++;
+		return count;
+	}
+
+	/**
+	 * Turns a direction by a number of 90 degree steps
+	 *
+	 * @param dir The direction index
+	 * @param steps The number of clockwise steps, negative for counter-clockwise
+	 * @return The new direction index
+	 */
+	public static int turn( final int dir, final int steps ) {
+		return (dir + steps) & 3;
+	}
+
+	/**
+	 * @param symbol The direction symbol, one of ^, >, v or <
+	 * @return The direction index
+	 */
+	public static int direction( final char symbol ) {
+		final int dir = SYMBOLS.indexOf( symbol );
+		if( dir < 0 ) throw new IllegalArgumentException( "Invalid direction symbol: " + symbol );
+		return dir;
+	}
+
+	/**
+	 * @param dir The direction index
+	 * @return The symbol of the direction
+	 */
+	public static char symbol( final int dir ) {
+		return SYMBOLS.charAt( dir );
+	}
+
+	/** @return The string that visualises the grid, one line per row */
+	@Override
+	public String toString( ) {
+		final StringBuilder sb = new StringBuilder( (width + 1) * height );
+		for( int y = 0; y < height; y++ ) {
+			if( y > 0 ) sb.append( '\n' );
+			sb.append( cells, index( 0, y ), width );
+		}
+		return sb.toString( );
+	}
+}
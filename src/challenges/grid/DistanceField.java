@@ -0,0 +1,95 @@
+package challenges.grid;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first distance field over a CharGrid. For every cell of the grid it
+ * holds the number of steps needed to reach it from a source cell, moving only
+ * through cells that are not walls. Distances are stored in a flat int array
+ * indexed by cell, and the search uses a circular queue of cell indices, such
+ * that no objects are created per cell.
+ */
+public class DistanceField {
+	/** The distance of cells that cannot be reached */
+	public static final int UNREACHABLE = -1;
+
+	/** The grid the field was computed on */
+	protected final CharGrid grid;
+
+	/** The distance to every cell, UNREACHABLE if it cannot be reached */
+	protected final int[] dist;
+
+	/** The number of cells that can be reached */
+	protected final int reachable;
+
+	/**
+	 * Computes the distance field from the given source cell
+	 *
+	 * @param grid The grid
+	 * @param source The cell index to compute distances from
+	 * @param wall The value of cells that cannot be moved through. Cells outside
+	 *   of the grid can never be moved through
+	 */
+	public DistanceField( final CharGrid grid, final int source, final char wall ) {
+		this.grid = grid;
+		this.dist = new int[ grid.size( ) ];
+		Arrays.fill( dist, UNREACHABLE );
+
+		// the queue only ever holds the cells of two consecutive distances, so
+		// start small and grow it when needed
+		int[] Q = new int[ 64 ];
+		int head = 0;
+		int size = 0;
+
+		dist[source] = 0;
+		Q[0] = source;
+		size = 1;
+		int count = 0;
+		while( size > 0 ) {
+			final int c = Q[head];
+			head = (head + 1) & (Q.length - 1);
+			size--;
+			count++;
+
+			for( int d = 0; d < 4; d++ ) {
+				final int n = grid.move( c, d );
+				if( dist[n] != UNREACHABLE ) continue;
+				final char v = grid.get( n );
+				if( v == wall || v == CharGrid.OUTSIDE ) continue;
+				dist[n] = dist[c] + 1;
+
+				// grow the queue by unrolling it into an array of twice the size
+				if( size == Q.length ) {
+					final int[] Q2 = new int[ Q.length * 2 ];
+					for( int i = 0; i < size; i++ ) Q2[i] = Q[(head + i) & (Q.length - 1)];
+					Q = Q2;
+					head = 0;
+				}
+				Q[(head + size) & (Q.length - 1)] = n;
+				size++;
+			}
+		}
+		this.reachable = count;
+	}
+
+	/**
+	 * @param cell The cell index
+	 * @return The distance from the source to the cell, or UNREACHABLE
+	 */
+	public int get( final int cell ) {
+		return dist[cell];
+	}
+
+	/**
+	 * @return The array of distances to every cell index. This is the array
+	 *   used by the field itself, so it should not be modified
+	 */
+	public int[] getDistances( ) {
+		return dist;
+	}
+
+	/** @return The number of cells that can be reached from the source */
+	public int getReachableCount( ) {
+		return reachable;
+	}
+}
@@ -0,0 +1,195 @@
+package challenges.harness;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs the example and real inputs of all days concurrently on a fork-join
+ * pool and reports the wall time, CPU time and allocated bytes of every part.
+ * As all runs are independent, the batch takes about as long as the slowest
+ * single run given enough cores.
+ * 
+ * CPU time and allocations are measured for the thread that runs a part. As
+ * other runs execute at the same time, the use of other threads cannot be
+ * attributed to a single run, so both are reported as n/a for parallel
+ * solvers that do their work on the workers of another pool.
+ * 
+ * Usage: BatchRunner [-threads N]
+ */
+public class BatchRunner {
+	/** The pool that executes the runs */
+	protected final ForkJoinPool pool;
+
+	/** The thread management bean used to measure CPU time and allocations */
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean( );
+
+	/**
+	 * Creates a new batch runner
+	 * 
+	 * @param threads The number of worker threads to use
+	 */
+	public BatchRunner( final int threads ) {
+		pool = new ForkJoinPool( threads );
+	}
+
+	/**
+	 * Runs all days in parallel and prints the timings of every part
+	 * 
+	 * @param args The command line arguments
+	 * @throws Exception
+	 */
+	public static void main( final String[] args ) throws Exception {
+		int threads = Runtime.getRuntime( ).availableProcessors( );
+		if( args.length == 2 && args[0].equals( "-threads" ) ) threads = Integer.parseInt( args[1] );
+
+		final BatchRunner br = new BatchRunner( threads );
+		final long start = System.nanoTime( );
+		final List<Run> runs = br.runAll( );
+		final long wall = System.nanoTime( ) - start;
+		br.pool.shutdown( );
+
+		long total = 0;
+		for( final Run r : runs ) {
+			System.out.println( r );
+			total += r.wall;
+		}
+		System.out.println( String.format( "\n%d runs on %d threads in %.1f ms (%.1f ms sequential)", runs.size( ), threads, wall / 1e6, total / 1e6 ) );
+	}
+
+	/**
+	 * Finds all DayNN classes of the challenges package
+	 * 
+	 * @return The list of DayNN classes, ordered by day
+	 */
+	public static List<Class<?>> findDays( ) {
+		final List<Class<?>> days = new ArrayList<>( );
+		for( int d = 1; d <= 25; d++ ) {
+			final String name = String.format( "challenges.day%02d.Day%02d", d, d );
+			try {
+				days.add( Class.forName( name ) );
+			} catch( ClassNotFoundException e ) {
+				// no solution for this day
+			}
+		}
+		return days;
+	}
+
+	/**
+	 * Submits a run for every registered solver part and input of every day to
+	 * the pool and waits for all of them to complete
+	 * 
+	 * @return The list of completed runs, ordered by day, part and input
+	 */
+	public List<Run> runAll( ) {
+		final List<ForkJoinTask<Run>> tasks = new ArrayList<>( );
+		for( final Class<?> day : findDays( ) ) {
+			for( final SolverCase<?> sc : Solvers.all( ) ) {
+				if( !sc.dayclass.equals( day ) ) continue;
+				for( final String resource : sc.getInputs( ) )
+					tasks.add( pool.submit( ( ) -> run( sc, resource ) ) );
+			}
+		}
+
+		final List<Run> runs = new ArrayList<>( tasks.size( ) );
+		for( final ForkJoinTask<Run> t : tasks ) runs.add( t.join( ) );
+		return runs;
+	}
+
+	/**
+	 * Runs a single solver part on one of its inputs on the current thread
+	 * 
+	 * @param sc The solver to run
+	 * @param resource The input resource to run it on
+	 * @return The run result and its timings
+	 */
+	protected static Run run( final SolverCase<?> sc, final String resource ) {
+		final Run r = new Run( sc, resource );
+		final long tid = Thread.currentThread( ).getId( );
+		final long wall0 = System.nanoTime( );
+		final long cpu0 = THREADS.getCurrentThreadCpuTime( );
+		final long alloc0 = allocated( tid );
+		try {
+			r.answer = String.valueOf( solve( sc, sc.readInput( resource ) ) );
+		} catch( Throwable t ) {
+			r.error = t.toString( );
+		}
+		r.wall = System.nanoTime( ) - wall0;
+
+		// the calling thread only measures its own share of a parallel solver
+		if( !sc.isParallel( ) ) {
+			r.cpu = THREADS.getCurrentThreadCpuTime( ) - cpu0;
+			r.alloc = alloc0 < 0 ? -1 : allocated( tid ) - alloc0;
+		}
+		return r;
+	}
+
+	/**
+	 * Parses and solves the input
+	 * 
+	 * @param sc The solver
+	 * @param input The input
+	 * @return The answer
+	 */
+	private static <T> Object solve( final SolverCase<T> sc, final List<String> input ) {
+		return sc.solve( sc.parse( input ), input );
+	}
+
+	/**
+	 * Determines the number of bytes allocated by the thread so far, if the
+	 * JVM supports measuring it
+	 * 
+	 * @param tid The ID of the thread
+	 * @return The number of allocated bytes or -1 if not supported
+	 */
+	private static long allocated( final long tid ) {
+		if( !(THREADS instanceof com.sun.management.ThreadMXBean) ) return -1;
+		return ((com.sun.management.ThreadMXBean)THREADS).getThreadAllocatedBytes( tid );
+	}
+
+	/**
+	 * Holds the outcome and resource usage of a single run
+	 */
+	public static class Run {
+		/** The solver that was run */
+		protected final SolverCase<?> solver;
+
+		/** The input resource */
+		protected final String resource;
+
+		/** The answer, if the run succeeded */
+		protected String answer;
+
+		/** The error, if the run failed */
+		protected String error;
+
+		/** The wall time in nanoseconds */
+		protected long wall;
+
+		/** The CPU time in nanoseconds and the bytes allocated, -1 if they could
+		 * not be measured for this run */
+		protected long cpu = -1, alloc = -1;
+
+		/**
+		 * Creates a new run
+		 * 
+		 * @param solver The solver to run
+		 * @param resource The input resource to run it on
+		 */
+		protected Run( final SolverCase<?> solver, final String resource ) {
+			this.solver = solver;
+			this.resource = resource;
+		}
+
+		/** @return The single line description of the run and its timings */
+		@Override
+		public String toString( ) {
+			final String c = cpu < 0 ? "n/a" : String.format( "%.1f", cpu / 1e6 );
+			final String a = alloc < 0 ? "n/a" : String.format( "%.1f", alloc / 1048576.0 );
+			return String.format( "%-48s %-13s wall %9.1f ms, cpu %9s ms, alloc %9s MB: %s", solver, resource, wall / 1e6, c, a, error != null ? "ERROR " + error : answer );
+		}
+	}
+}
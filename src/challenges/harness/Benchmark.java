@@ -0,0 +1,259 @@
+package challenges.harness;
+
+import java.io.FileWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Micro benchmark harness that times the parsing and solving stages of every
+ * registered solver separately, on the example and real inputs of the day as
+ * well as on synthetic inputs that are scaled up from the real input. The
+ * results are printed and written to a JSON file, so that runs can be
+ * compared over time.
+ * 
+ * Usage: Benchmark [-day N] [-warmup N] [-iter N] [-scale 10,100,1000]
+ *   [-out file.json]
+ */
+public class Benchmark {
+	/** The number of warm-up runs before measuring */
+	protected final int warmup;
+
+	/** The number of measured runs */
+	protected final int iterations;
+
+	/**
+	 * Creates a new benchmark
+	 * 
+	 * @param warmup The number of warm-up runs per solver and input
+	 * @param iterations The number of measured runs per solver and input
+	 */
+	public Benchmark( final int warmup, final int iterations ) {
+		this.warmup = warmup;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Runs the benchmark on all solvers, or those of a single day
+	 * 
+	 * @param args The command line arguments
+	 * @throws Exception
+	 */
+	public static void main( final String[] args ) throws Exception {
+		int day = 0;
+		int warmup = 3;
+		int iter = 5;
+		String scales = "10";
+		String out = "benchmark.json";
+		for( int i = 0; i < args.length - 1; i += 2 ) {
+			switch( args[i] ) {
+				case "-day": day = Integer.parseInt( args[i+1] ); break;
+				case "-warmup": warmup = Integer.parseInt( args[i+1] ); break;
+				case "-iter": iter = Integer.parseInt( args[i+1] ); break;
+				case "-scale": scales = args[i+1]; break;
+				case "-out": out = args[i+1]; break;
+				default: throw new IllegalArgumentException( "Unknown option: " + args[i] );
+			}
+		}
+
+		final List<Integer> factors = new ArrayList<>( );
+		for( final String f : scales.split( "," ) ) if( !f.isEmpty( ) ) factors.add( Integer.parseInt( f ) );
+
+		// run all matching solvers on their inputs and scaled versions thereof
+		final Benchmark bench = new Benchmark( warmup, iter );
+		final List<Result> results = new ArrayList<>( );
+		for( final SolverCase<?> sc : Solvers.all( ) ) {
+			if( day != 0 && sc.day != day ) continue;
+
+			List<String> real = null;
+			for( final String resource : sc.getInputs( ) ) {
+				final List<String> input = sc.readInput( resource );
+				results.add( bench.run( sc, resource, 1, input ) );
+				real = input;
+			}
+
+			if( !sc.isScalable( ) ) continue;
+			for( final int f : factors ) results.add( bench.run( sc, sc.getInputs( )[ sc.getInputs( ).length - 1 ], f, sc.scale( real, f ) ) );
+		}
+
+		// write all results to the JSON file
+		try( final Writer w = new FileWriter( out ) ) {
+			w.write( toJSON( results, warmup, iter ) );
+		}
+		System.out.println( "Results written to " + out );
+	}
+
+	/**
+	 * Benchmarks a single solver on the given input
+	 * 
+	 * @param sc The solver to benchmark
+	 * @param resource The name of the input resource
+	 * @param scale The factor by which the input was scaled
+	 * @param input The input to run the solver on
+	 * @return The benchmark result
+	 */
+	public Result run( final SolverCase<?> sc, final String resource, final int scale, final List<String> input ) {
+		final Result r = new Result( sc, resource, scale, input );
+		try {
+			measure( sc, input, r );
+		} catch( Throwable t ) {
+			r.error = t.toString( );
+		}
+		System.out.println( r );
+		return r;
+	}
+
+	/**
+	 * Performs the warm-up and measured runs of the solver. Every run parses
+	 * the input anew as several solvers modify or cache state in their model.
+	 * 
+	 * @param sc The solver to benchmark
+	 * @param input The input to run it on
+	 * @param r The result to store timings in
+	 */
+	private <T> void measure( final SolverCase<T> sc, final List<String> input, final Result r ) {
+		for( int i = 0; i < warmup; i++ ) sc.solve( sc.parse( input ), input );
+
+		r.parse = new long[ iterations ];
+		r.solve = new long[ iterations ];
+		for( int i = 0; i < iterations; i++ ) {
+			final long t0 = System.nanoTime( );
+			final T model = sc.parse( input );
+			final long t1 = System.nanoTime( );
+			r.answer = String.valueOf( sc.solve( model, input ) );
+			final long t2 = System.nanoTime( );
+			r.parse[i] = t1 - t0;
+			r.solve[i] = t2 - t1;
+		}
+	}
+
+	/**
+	 * Converts the benchmark results into a JSON document
+	 * 
+	 * @param results The list of results
+	 * @param warmup The number of warm-up runs used
+	 * @param iter The number of measured runs used
+	 * @return The JSON string
+	 */
+	protected static String toJSON( final List<Result> results, final int warmup, final int iter ) {
+		final StringBuilder sb = new StringBuilder( );
+		sb.append( "{\n" );
+		sb.append( "  \"timestamp\": \"" + Instant.now( ) + "\",\n" );
+		sb.append( "  \"java\": \"" + escape( System.getProperty( "java.version" ) ) + "\",\n" );
+		sb.append( "  \"warmup\": " + warmup + ",\n" );
+		sb.append( "  \"iterations\": " + iter + ",\n" );
+		sb.append( "  \"results\": [" );
+		for( int i = 0; i < results.size( ); i++ ) {
+			sb.append( i > 0 ? ",\n    " : "\n    " );
+			sb.append( results.get( i ).toJSON( ) );
+		}
+		sb.append( "\n  ]\n}\n" );
+		return sb.toString( );
+	}
+
+	/**
+	 * Escapes a string for use in a JSON document
+	 * 
+	 * @param s The string to escape
+	 * @return The escaped string
+	 */
+	protected static String escape( final String s ) {
+		final StringBuilder sb = new StringBuilder( s.length( ) );
+		for( final char c : s.toCharArray( ) ) {
+			if( c == '"' || c == '\\' ) sb.append( '\\' ).append( c );
+			else if( c < ' ' ) sb.append( String.format( "\\u%04x", (int)c ) );
+			else sb.append( c );
+		}
+		return sb.toString( );
+	}
+
+	/**
+	 * Holds the timing results of a single solver and input
+	 */
+	public static class Result {
+		/** The solver that was benchmarked */
+		protected final SolverCase<?> solver;
+
+		/** The input resource name */
+		protected final String resource;
+
+		/** The factor by which the input was scaled */
+		protected final int scale;
+
+		/** The number of input lines and characters */
+		protected final long lines, chars;
+
+		/** The answer produced by the solver */
+		protected String answer;
+
+		/** The error that occurred while running, if any */
+		protected String error;
+
+		/** The measured parsing and solving times in nanoseconds */
+		protected long[] parse, solve;
+
+		/**
+		 * Creates a new, empty result
+		 * 
+		 * @param solver The solver that is benchmarked
+		 * @param resource The input resource name
+		 * @param scale The input scaling factor
+		 * @param input The input the solver is run on
+		 */
+		protected Result( final SolverCase<?> solver, final String resource, final int scale, final List<String> input ) {
+			this.solver = solver;
+			this.resource = resource;
+			this.scale = scale;
+			this.lines = input.size( );
+			this.chars = input.stream( ).mapToLong( String::length ).sum( );
+		}
+
+		/**
+		 * Converts an array of timings into a JSON object with its statistics
+		 * 
+		 * @param T The timings in nanoseconds
+		 * @return The JSON object string that holds mean, min and max
+		 */
+		private static String stats( final long[] T ) {
+			if( T == null ) return "null";
+			long min = Long.MAX_VALUE, max = 0, sum = 0;
+			for( final long t : T ) {
+				min = Math.min( min, t );
+				max = Math.max( max, t );
+				sum += t;
+			}
+			return "{ \"mean_ns\": " + (sum / T.length) + ", \"min_ns\": " + min + ", \"max_ns\": " + max + " }";
+		}
+
+		/** @return The JSON object that describes this result */
+		public String toJSON( ) {
+			return "{ \"day\": " + solver.day + ", \"part\": " + solver.part
+					+ ", \"solver\": \"" + escape( solver.name ) + "\", \"input\": \"" + escape( resource ) + "\""
+					+ ", \"scale\": " + scale + ", \"lines\": " + lines + ", \"chars\": " + chars
+					+ ", \"answer\": " + (answer != null ? "\"" + escape( answer ) + "\"" : "null")
+					+ ", \"error\": " + (error != null ? "\"" + escape( error ) + "\"" : "null")
+					+ ", \"parse\": " + stats( parse ) + ", \"solve\": " + stats( solve ) + " }";
+		}
+
+		/** @return A single line summary of the result */
+		@Override
+		public String toString( ) {
+			final String in = resource + (scale > 1 ? " x" + scale : "");
+			if( error != null ) return solver + " [" + in + "] failed: " + error;
+			return String.format( "%s [%s] parse %.3f ms, solve %.3f ms: %s", solver, in, min( parse ) / 1e6, min( solve ) / 1e6, answer );
+		}
+
+		/**
+		 * Determines the lowest timing of a series
+		 * 
+		 * @param T The array of timings
+		 * @return The minimum
+		 */
+		private static long min( final long[] T ) {
+			long min = Long.MAX_VALUE;
+			for( final long t : T ) min = Math.min( min, t );
+			return min;
+		}
+	}
+}
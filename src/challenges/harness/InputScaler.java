@@ -0,0 +1,191 @@
+package challenges.harness;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collection of functions that generate synthetic puzzle inputs that are a
+ * given factor larger than an existing input, while keeping the input valid
+ * for the solver it is intended for.
+ */
+public class InputScaler {
+	/**
+	 * Repeats all lines of the input
+	 * 
+	 * @param input The input lines
+	 * @param factor The number of times to repeat the input
+	 * @return The list that contains factor copies of the input lines
+	 */
+	public static List<String> repeatLines( final List<String> input, final int factor ) {
+		return repeatBody( input, 0, factor );
+	}
+
+	/**
+	 * Repeats all lines of the input after the first few header lines, which
+	 * are only copied once
+	 * 
+	 * @param input The input lines
+	 * @param header The number of header lines that should not be repeated
+	 * @param factor The number of times to repeat the remaining lines
+	 * @return The header followed by factor copies of the remaining lines
+	 */
+	public static List<String> repeatBody( final List<String> input, final int header, final int factor ) {
+		final List<String> body = input.subList( header, input.size( ) );
+		final List<String> result = new ArrayList<>( header + body.size( ) * factor );
+		result.addAll( input.subList( 0, header ) );
+		for( int i = 0; i < factor; i++ ) result.addAll( body );
+		return result;
+	}
+
+	/**
+	 * Repeats the contents of a single line input
+	 * 
+	 * @param input The input, of which only the first line is used
+	 * @param factor The number of times to repeat the line
+	 * @param separator The separator to put between the copies
+	 * @return A single line input that holds factor copies of the line
+	 */
+	public static List<String> repeatLine( final List<String> input, final int factor, final String separator ) {
+		final String line = input.get( 0 );
+		final StringBuilder sb = new StringBuilder( (line.length( ) + separator.length( )) * factor );
+		sb.append( line );
+		for( int i = 1; i < factor; i++ ) sb.append( separator ).append( line );
+
+		final List<String> result = new ArrayList<>( 1 );
+		result.add( sb.toString( ) );
+		return result;
+	}
+
+	/**
+	 * Repeats a disk map of alternating file and free space sizes, making sure
+	 * that the result still ends with a file entry
+	 * 
+	 * @param input The single line disk map
+	 * @param factor The number of times to repeat the disk map
+	 * @return The scaled disk map
+	 */
+	public static List<String> repeatDiskMap( final List<String> input, final int factor ) {
+		final List<String> result = repeatLine( input, factor, "" );
+		final String map = result.get( 0 );
+		if( map.length( ) % 2 == 0 ) result.set( 0, map.substring( 0, map.length( ) - 1 ) );
+		return result;
+	}
+
+	/**
+	 * Tiles a character grid in both directions such that the result holds
+	 * (at least) factor copies of the grid
+	 * 
+	 * @param input The grid, one string per row
+	 * @param factor The minimal number of tiles
+	 * @return The tiled grid
+	 */
+	public static List<String> tileGrid( final List<String> input, final int factor ) {
+		final int tx = (int)Math.ceil( Math.sqrt( factor ) );
+		final int ty = (factor + tx - 1) / tx;
+
+		final List<String> result = new ArrayList<>( input.size( ) * ty );
+		for( int y = 0; y < ty; y++ ) {
+			for( final String row : input ) {
+				final StringBuilder sb = new StringBuilder( row.length( ) * tx );
+				for( int x = 0; x < tx; x++ ) sb.append( row );
+				result.add( sb.toString( ) );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Tiles a walled maze that has a single start 'S' in its bottom-left and a
+	 * single end 'E' in its top-right corner. The outer walls of neighbouring
+	 * tiles are merged and opened up wherever there is free space on both sides
+	 * so that the tiles become connected. Only the start of the bottom-left and
+	 * the end of the top-right tile are kept.
+	 * 
+	 * @param input The maze layout, one string per row
+	 * @param factor The minimal number of tiles
+	 * @return The layout of the tiled maze
+	 */
+	public static List<String> tileMaze( final List<String> input, final int factor ) {
+		final int tx = (int)Math.ceil( Math.sqrt( factor ) );
+		final int ty = (factor + tx - 1) / tx;
+		final int w = input.get( 0 ).length( ) - 1;
+		final int h = input.size( ) - 1;
+
+		// build the tiled grid, sharing the outer walls of neighbouring tiles
+		final char[][] M = new char[ h * ty + 1 ][ w * tx + 1 ];
+		for( int y = 0; y < M.length; y++ ) {
+			for( int x = 0; x < M[y].length; x++ ) {
+				final char c = input.get( y % h == 0 && y > 0 ? h : y % h ).charAt( x % w == 0 && x > 0 ? w : x % w );
+				final boolean keep = (c == 'S' && x / w == 0 && (y - 1) / h == ty - 1) || (c == 'E' && (x - 1) / w == tx - 1 && y / h == 0);
+				M[y][x] = (c == 'S' || c == 'E') && !keep ? '.' : c;
+			}
+		}
+
+		// then open up the shared walls wherever both sides are free
+		for( int y = 1; y < M.length - 1; y++ ) {
+			for( int x = 1; x < M[y].length - 1; x++ ) {
+				if( x % w == 0 && M[y][x-1] != '#' && M[y][x+1] != '#' ) M[y][x] = '.';
+				if( y % h == 0 && M[y-1][x] != '#' && M[y+1][x] != '#' ) M[y][x] = '.';
+			}
+		}
+
+		final List<String> result = new ArrayList<>( M.length );
+		for( final char[] row : M ) result.add( new String( row ) );
+		return result;
+	}
+
+	/**
+	 * Generates a race track that consists of a single path without branches,
+	 * snaking from the top-left start to the end in the bottom rows. The track
+	 * holds roughly factor times as many track tiles as the given input.
+	 * 
+	 * @param input The race track to scale
+	 * @param factor The scaling factor
+	 * @return The layout of the generated race track
+	 */
+	public static List<String> raceTrack( final List<String> input, final int factor ) {
+		// count track tiles in the original input and determine the size of the
+		// new one, keeping it roughly square
+		long tiles = 0;
+		for( final String row : input )
+			for( int i = 0; i < row.length( ); i++ ) if( row.charAt( i ) != '#' ) tiles++;
+		final long target = tiles * factor;
+		final int w = (int)Math.max( 5, Math.sqrt( 2 * target ) );
+		final int lanes = (int)Math.max( 1, (target + w - 3) / (w - 2) );
+
+		// create lanes separated by single walls, connected alternatively on the
+		// right and the left side
+		final char[][] M = new char[ 2 * lanes + 1 ][ w ];
+		for( final char[] row : M ) Arrays.fill( row, '#' );
+		for( int l = 0; l < lanes; l++ ) {
+			for( int x = 1; x < w - 1; x++ ) M[2 * l + 1][x] = '.';
+			if( l < lanes - 1 ) M[2 * l + 2][l % 2 == 0 ? w - 2 : 1] = '.';
+		}
+		M[1][1] = 'S';
+		M[2 * lanes - 1][(lanes - 1) % 2 == 0 ? w - 2 : 1] = 'E';
+
+		final List<String> result = new ArrayList<>( M.length );
+		for( final char[] row : M ) result.add( new String( row ) );
+		return result;
+	}
+
+	/**
+	 * Creates disjoint copies of a network given by its connection list, the
+	 * nodes of every copy are relabelled by appending the copy index
+	 * 
+	 * @param input The list of connections, formatted as <node>-<node>
+	 * @param factor The number of copies
+	 * @return The list of connections of the combined network
+	 */
+	public static List<String> copyNetwork( final List<String> input, final int factor ) {
+		final List<String> result = new ArrayList<>( input );
+		for( int i = 1; i < factor; i++ ) {
+			for( final String conn : input ) {
+				final String[] iface = conn.split( "-" );
+				result.add( iface[0] + i + "-" + iface[1] + i );
+			}
+		}
+		return result;
+	}
+}
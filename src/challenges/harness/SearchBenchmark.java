@@ -0,0 +1,81 @@
+package challenges.harness;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import aocutil.io.FileReader;
+import challenges.day16.Day16;
+import challenges.day16.ReindeerMaze;
+import challenges.day16.ReindeerMaze.Search;
+
+/**
+ * Compares the search algorithms of the Reindeer Maze in terms of expanded
+ * states and run time, for both finding the best path and the best seats. The
+ * mazes are the example and real inputs of day 16 plus tiled versions of the
+ * real input. The path based search is skipped on the tiled mazes as it does
+ * not scale to them.
+ *
+ * Usage: SearchBenchmark [-scale 4,16,64]
+ */
+public class SearchBenchmark {
+	/**
+	 * Runs all search algorithms on all mazes and prints the results
+	 *
+	 * @param args The command line arguments
+	 * @throws Exception
+	 */
+	public static void main( final String[] args ) throws Exception {
+		String scales = "4,16,64";
+		if( args.length == 2 && args[0].equals( "-scale" ) ) scales = args[1];
+
+		// read the inputs and generate the tiled mazes
+		final List<String> names = new ArrayList<>( );
+		final List<List<String>> mazes = new ArrayList<>( );
+		List<String> real = null;
+		for( final String resource : new String[] { "example.txt", "example2.txt", "input.txt" } ) {
+			real = new FileReader( Day16.class.getResource( resource ) ).readLines( );
+			names.add( resource );
+			mazes.add( real );
+		}
+		for( final String f : scales.split( "," ) ) {
+			if( f.isEmpty( ) ) continue;
+			names.add( "input.txt x" + f );
+			mazes.add( InputScaler.tileMaze( real, Integer.parseInt( f ) ) );
+		}
+
+		// run every search on every maze and report expanded states relative to
+		// those of Dijkstra
+		System.out.println( String.format( "%-18s %-13s %12s %8s %10s %12s %8s %10s", "maze", "search", "path exp", "ratio", "ms", "seats exp", "ratio", "ms" ) );
+		for( int i = 0; i < mazes.size( ); i++ ) {
+			final List<String> maze = mazes.get( i );
+			final String size = maze.get( 0 ).length( ) + "x" + maze.size( );
+			long basePath = 0, baseSeats = 0;
+			Object answer = null;
+			for( final Search s : new Search[] { Search.Dijkstra, Search.AStar, Search.Bidirectional, Search.Junctions, Search.Paths } ) {
+				if( s == Search.Paths && i > 2 ) continue;
+
+				final ReindeerMaze rm = new ReindeerMaze( maze, s );
+				long t = System.nanoTime( );
+				final long path = rm.findBestPath( );
+				final double pathms = (System.nanoTime( ) - t) / 1e6;
+				final long pathexp = rm.getExpanded( );
+
+				t = System.nanoTime( );
+				final long seats = rm.findBestSeats( );
+				final double seatsms = (System.nanoTime( ) - t) / 1e6;
+				final long seatsexp = rm.getExpanded( );
+
+				// use Dijkstra as reference and check that all searches agree
+				if( s == Search.Dijkstra ) {
+					basePath = pathexp;
+					baseSeats = seatsexp;
+					answer = path + "/" + seats;
+				} else if( !answer.equals( path + "/" + seats ) )
+					throw new RuntimeException( "Search " + s + " gives " + path + "/" + seats + " instead of " + answer + " on " + names.get( i ) );
+
+				System.out.println( String.format( "%-18s %-13s %12d %8.3f %10.1f %12d %8.3f %10.1f", names.get( i ), s, pathexp, pathexp / (double)basePath, pathms, seatsexp, seatsexp / (double)baseSeats, seatsms ) );
+			}
+			System.out.println( String.format( "%-18s %s, answers %s\n", "", size, answer ) );
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package challenges.harness;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import aocutil.io.FileReader;
+
+/**
+ * Describes a single solver entry point of one of the days, split into a
+ * parsing stage that reconstructs the puzzle model from its input and a
+ * solving stage that computes the answer from that model. This allows both
+ * stages to be timed separately.
+ * 
+ * @param <T> The type of the model produced by the parsing stage
+ */
+public class SolverCase<T> {
+	/** The day of the Advent of Code this solver belongs to */
+	public final int day;
+
+	/** The part of the day's puzzle this solver answers */
+	public final int part;
+
+	/** A descriptive name of the solver entry point */
+	public final String name;
+
+	/** The DayNN class, used to locate the input resources */
+	public final Class<?> dayclass;
+
+	/** True if the input is read as line groups rather than single lines */
+	protected final boolean groups;
+
+	/** True if the solver runs its work on other threads than the calling one */
+	protected final boolean parallel;
+
+	/** The input resources of the day to run this solver on */
+	protected final String[] inputs;
+
+	/** The parsing stage that reconstructs the puzzle model from its input */
+	protected final Function<List<String>, T> parser;
+
+	/** The solving stage that computes the answer from the model and the raw
+	 * input for solvers that take additional arguments from it */
+	protected final BiFunction<T, List<String>, Object> solver;
+
+	/** Function that scales the real input by the given factor, null if the
+	 * input of this solver cannot be scaled */
+	protected final BiFunction<List<String>, Integer, List<String>> scaler;
+
+	/**
+	 * Creates a new solver case
+	 * 
+	 * @param dayclass The DayNN class of the solver
+	 * @param day The day number
+	 * @param part The puzzle part
+	 * @param name The descriptive name of the solver entry point
+	 * @param groups True to read the inputs as line groups, false for lines
+	 * @param inputs The input resource files to run the solver on
+	 * @param parser The parsing stage
+	 * @param solver The solving stage
+	 * @param scaler The input scaling function, null if not scalable
+	 */
+	public SolverCase( final Class<?> dayclass, final int day, final int part, final String name, final boolean groups, final String[] inputs, final Function<List<String>, T> parser, final BiFunction<T, List<String>, Object> solver, final BiFunction<List<String>, Integer, List<String>> scaler ) {
+		this( dayclass, day, part, name, groups, false, inputs, parser, solver, scaler );
+	}
+
+	/**
+	 * Creates a new solver case
+	 * 
+	 * @param dayclass The DayNN class of the solver
+	 * @param day The day number
+	 * @param part The puzzle part
+	 * @param name The descriptive name of the solver entry point
+	 * @param groups True to read the inputs as line groups, false for lines
+	 * @param parallel True if the solver runs its work on other threads, such
+	 *   as the workers of a fork-join pool
+	 * @param inputs The input resource files to run the solver on
+	 * @param parser The parsing stage
+	 * @param solver The solving stage
+	 * @param scaler The input scaling function, null if not scalable
+	 */
+	public SolverCase( final Class<?> dayclass, final int day, final int part, final String name, final boolean groups, final boolean parallel, final String[] inputs, final Function<List<String>, T> parser, final BiFunction<T, List<String>, Object> solver, final BiFunction<List<String>, Integer, List<String>> scaler ) {
+		this.dayclass = dayclass;
+		this.day = day;
+		this.part = part;
+		this.name = name;
+		this.groups = groups;
+		this.parallel = parallel;
+		this.inputs = inputs.clone( );
+		this.parser = parser;
+		this.solver = solver;
+		this.scaler = scaler;
+	}
+
+	/** @return The names of the input resources this solver runs on */
+	public String[] getInputs( ) {
+		return inputs.clone( );
+	}
+
+	/** @return True if the solver runs its work on other threads than the
+	 *   calling one, such that the resource use of the calling thread does not
+	 *   reflect its cost */
+	public boolean isParallel( ) {
+		return parallel;
+	}
+
+	/** @return True if synthetic, scaled inputs can be generated for this case */
+	public boolean isScalable( ) {
+		return scaler != null;
+	}
+
+	/**
+	 * Reads one of the input resources of this solver from the day's package
+	 * 
+	 * @param resource The name of the input resource
+	 * @return The input as list of lines or line groups
+	 * @throws Exception if the resource could not be read
+	 */
+	public List<String> readInput( final String resource ) throws Exception {
+		final FileReader fr = new FileReader( dayclass.getResource( resource ) );
+		return groups ? fr.readLineGroups( ";" ) : fr.readLines( );
+	}
+
+	/**
+	 * Generates a synthetic input that is roughly factor times larger than the
+	 * given input
+	 * 
+	 * @param input The input to scale
+	 * @param factor The scaling factor
+	 * @return The scaled input
+	 */
+	public List<String> scale( final List<String> input, final int factor ) {
+		if( scaler == null ) throw new UnsupportedOperationException( "Solver " + this + " does not support input scaling" );
+		return scaler.apply( input, factor );
+	}
+
+	/**
+	 * Runs the parsing stage on the given input
+	 * 
+	 * @param input The input to parse
+	 * @return The puzzle model
+	 */
+	public T parse( final List<String> input ) {
+		return parser.apply( input );
+	}
+
+	/**
+	 * Runs the solving stage on a previously parsed model
+	 * 
+	 * @param model The model to solve
+	 * @param input The raw input the model was parsed from
+	 * @return The answer
+	 */
+	public Object solve( final T model, final List<String> input ) {
+		return solver.apply( model, input );
+	}
+
+	/** @return The solver description as day, part and name */
+	@Override
+	public String toString( ) {
+		return "Day " + day + "." + part + " (" + name + ")";
+	}
+}
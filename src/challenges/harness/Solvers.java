@@ -0,0 +1,256 @@
+package challenges.harness;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import challenges.day01.Day01;
+import challenges.day02.Day02;
+import challenges.day03.Day03;
+import challenges.day04.CrossWord;
+import challenges.day04.Day04;
+import challenges.day05.Day05;
+import challenges.day06.Day06;
+import challenges.day06.LabPatrol;
+import challenges.day07.BridgeCalibrator;
+import challenges.day07.Day07;
+import challenges.day08.AntennaMap;
+import challenges.day08.Day08;
+import challenges.day09.Day09;
+import challenges.day09.Defragmenter;
+import challenges.day09.DiskMap;
+import challenges.day10.Day10;
+import challenges.day10.TrailMap;
+import challenges.day11.Day11;
+import challenges.day11.PlutonianPebbles;
+import challenges.day12.Day12;
+import challenges.day12.GardenLayout;
+import challenges.day13.ClawMachine;
+import challenges.day13.Day13;
+import challenges.day14.Day14;
+import challenges.day14.RobotGrid;
+import challenges.day15.Day15;
+import challenges.day15.Warehouse;
+import challenges.day15.WarehouseSize2;
+import challenges.day16.Day16;
+import challenges.day16.ReindeerMaze;
+import challenges.day17.Day17;
+import challenges.day17.IntCodeMachine;
+import challenges.day18.Day18;
+import challenges.day19.Day19;
+import challenges.day20.CPUMaze;
+import challenges.day20.Day20;
+import challenges.day21.Day21;
+import challenges.day21.RobotController;
+import challenges.day22.Day22;
+import challenges.day22.MonkeyMarket;
+import challenges.day23.Day23;
+import challenges.day23.LANParty;
+
+/**
+ * Registry of the solver entry points of all days, each split into a parsing
+ * and solving stage. Days that have no separate solver class are registered
+ * through the part functions of their DayNN class, in which case the parsing
+ * stage only covers reading the input.
+ */
+public class Solvers {
+	/** The default inputs for a day */
+	private static final String[] INPUTS = new String[] { "example.txt", "input.txt" };
+
+	/** The list of all registered solver cases */
+	private static final List<SolverCase<?>> CASES = Collections.unmodifiableList( register( ) );
+
+	/** @return The solver cases of all days, ordered by day and part */
+	public static List<SolverCase<?>> all( ) {
+		return CASES;
+	}
+
+	/**
+	 * Builds the list of solver cases of every day
+	 * 
+	 * @return The list of solver cases
+	 */
+	private static List<SolverCase<?>> register( ) {
+		final List<SolverCase<?>> S = new ArrayList<>( );
+
+		add( S, Day01.class, 1, 1, "Day01.part1", false, INPUTS, in -> in, (in, raw) -> Day01.part1( in ), InputScaler::repeatLines );
+		add( S, Day01.class, 1, 2, "Day01.part2", false, INPUTS, in -> in, (in, raw) -> Day01.part2( in ), InputScaler::repeatLines );
+
+		add( S, Day02.class, 2, 1, "Day02.part1", false, INPUTS, in -> in, (in, raw) -> Day02.part1( in ), InputScaler::repeatLines );
+		add( S, Day02.class, 2, 2, "Day02.part2", false, INPUTS, in -> in, (in, raw) -> Day02.part2( in ), InputScaler::repeatLines );
+
+		add( S, Day03.class, 3, 1, "Day03.part1", false, INPUTS, in -> in.get( 0 ), (s, raw) -> Day03.part1( s ), (in, f) -> InputScaler.repeatLine( in, f, "" ) );
+		add( S, Day03.class, 3, 2, "Day03.part2", false, new String[] { "example2.txt", "input.txt" }, in -> in.get( 0 ), (s, raw) -> Day03.part2( s ), (in, f) -> InputScaler.repeatLine( in, f, "" ) );
+
+		add( S, Day04.class, 4, 1, "CrossWord.count", false, INPUTS, CrossWord::fromStringList, (cw, raw) -> cw.count( "XMAS" ), InputScaler::tileGrid );
+		add( S, Day04.class, 4, 2, "CrossWord.countXMAS", false, INPUTS, CrossWord::fromStringList, (cw, raw) -> cw.countXMAS( ), InputScaler::tileGrid );
+
+		add( S, Day05.class, 5, 1, "Day05.part1", true, INPUTS, in -> in, (in, raw) -> Day05.part1( in ), null );
+		add( S, Day05.class, 5, 2, "Day05.part2", true, INPUTS, in -> in, (in, raw) -> Day05.part2( in ), null );
+
+		add( S, Day06.class, 6, 1, "LabPatrol.countCoverage", false, INPUTS, LabPatrol::new, (lp, raw) -> lp.countCoverage( ), null );
+		add( S, Day06.class, 6, 2, "LabPatrol.countLoops", false, INPUTS, LabPatrol::new, (lp, raw) -> lp.countLoops( ), null );
+
+		add( S, Day07.class, 7, 1, "BridgeCalibrator.testEquation", false, INPUTS, in -> in, (in, raw) -> in.stream( ).mapToLong( s -> BridgeCalibrator.testEquation( s, false ) ).sum( ), InputScaler::repeatLines );
+		add( S, Day07.class, 7, 2, "BridgeCalibrator.testEquation", false, INPUTS, in -> in, (in, raw) -> in.stream( ).mapToLong( s -> BridgeCalibrator.testEquation( s, true ) ).sum( ), InputScaler::repeatLines );
+
+		add( S, Day08.class, 8, 1, "AntennaMap.countAntiNodes", false, INPUTS, AntennaMap::new, (am, raw) -> am.countAntiNodes( false ), InputScaler::tileGrid );
+		add( S, Day08.class, 8, 2, "AntennaMap.countAntiNodes", false, INPUTS, AntennaMap::new, (am, raw) -> am.countAntiNodes( true ), InputScaler::tileGrid );
+
+		add( S, Day09.class, 9, 1, "Defragmenter.defragmentSingle", false, INPUTS, in -> in.get( 0 ), (s, raw) -> Defragmenter.defragmentSingle( s ), InputScaler::repeatDiskMap );
+		add( S, Day09.class, 9, 1, "Defragmenter.defragmentSingle streaming", false, INPUTS, in -> DiskMap.of( in.get( 0 ) ), (dm, raw) -> Defragmenter.defragmentSingle( dm ), InputScaler::repeatDiskMap );
+		add( S, Day09.class, 9, 2, "Defragmenter.defragmentBlock", false, INPUTS, in -> in.get( 0 ), (s, raw) -> Defragmenter.defragmentBlock( s ), InputScaler::repeatDiskMap );
+		add( S, Day09.class, 9, 2, "Defragmenter.defragmentBlockIndexed", false, INPUTS, in -> in.get( 0 ), (s, raw) -> Defragmenter.defragmentBlockIndexed( s ), InputScaler::repeatDiskMap );
+		add( S, Day09.class, 9, 2, "Defragmenter.defragmentBlockTree", false, INPUTS, in -> in.get( 0 ), (s, raw) -> Defragmenter.defragmentBlockTree( s ), InputScaler::repeatDiskMap );
+
+		add( S, Day10.class, 10, 1, "TrailMap.countTrails", false, INPUTS, TrailMap::new, (tm, raw) -> tm.countTrails( false ), InputScaler::tileGrid );
+		add( S, Day10.class, 10, 2, "TrailMap.countTrails", false, INPUTS, TrailMap::new, (tm, raw) -> tm.countTrails( true ), InputScaler::tileGrid );
+
+		add( S, Day11.class, 11, 1, "PlutonianPebbles.blink", false, INPUTS, in -> new PlutonianPebbles( in.get( 0 ) ), (pp, raw) -> pp.blink( 25 ), (in, f) -> InputScaler.repeatLine( in, f, " " ) );
+		add( S, Day11.class, 11, 2, "PlutonianPebbles.blink", false, INPUTS, in -> new PlutonianPebbles( in.get( 0 ) ), (pp, raw) -> pp.blink( 75 ), (in, f) -> InputScaler.repeatLine( in, f, " " ) );
+
+		add( S, Day12.class, 12, 1, "GardenLayout.fenceCost", false, INPUTS, GardenLayout::new, (gl, raw) -> gl.fenceCost( false ), InputScaler::tileGrid );
+		add( S, Day12.class, 12, 2, "GardenLayout.fenceCost", false, INPUTS, GardenLayout::new, (gl, raw) -> gl.fenceCost( true ), InputScaler::tileGrid );
+		addParallel( S, Day12.class, 12, 1, "GardenLayout.fenceCost parallel", false, INPUTS, GardenLayout::new, (gl, raw) -> gl.fenceCost( false, ForkJoinPool.commonPool( ) ), InputScaler::tileGrid );
+		addParallel( S, Day12.class, 12, 2, "GardenLayout.fenceCost parallel", false, INPUTS, GardenLayout::new, (gl, raw) -> gl.fenceCost( true, ForkJoinPool.commonPool( ) ), InputScaler::tileGrid );
+
+		add( S, Day13.class, 13, 1, "ClawMachine.findWinningMoves", true, INPUTS, in -> clawMachines( in, false ), (cm, raw) -> cm.stream( ).mapToLong( ClawMachine::findWinningMoves ).sum( ), InputScaler::repeatLines );
+		add( S, Day13.class, 13, 2, "ClawMachine.findWinningMoves", true, INPUTS, in -> clawMachines( in, true ), (cm, raw) -> cm.stream( ).mapToLong( ClawMachine::findWinningMoves ).sum( ), InputScaler::repeatLines );
+
+		add( S, Day14.class, 14, 1, "RobotGrid.simulate", false, INPUTS, Solvers::robotGrid, (rg, raw) -> rg.simulate( 100 ), InputScaler::repeatLines );
+		add( S, Day14.class, 14, 2, "RobotGrid.simulateEasterEgg", false, new String[] { "input.txt" }, Solvers::robotGrid, (rg, raw) -> rg.simulateEasterEgg( 10000000 ), null );
+
+		add( S, Day15.class, 15, 1, "Warehouse.move", false, new String[] { "example.txt", "example2.txt", "input.txt" }, Warehouse::fromStringList, (w, raw) -> w.move( ), null );
+		add( S, Day15.class, 15, 2, "WarehouseSize2.move", false, new String[] { "example3.txt", "example2.txt", "input.txt" }, WarehouseSize2::fromStringList, (w, raw) -> w.move( ), null );
+
+		add( S, Day16.class, 16, 1, "ReindeerMaze.findBestPath", false, new String[] { "example.txt", "example2.txt", "input.txt" }, ReindeerMaze::new, (rm, raw) -> rm.findBestPath( ), InputScaler::tileMaze );
+		add( S, Day16.class, 16, 2, "ReindeerMaze.findBestSeats", false, new String[] { "example.txt", "example2.txt", "input.txt" }, ReindeerMaze::new, (rm, raw) -> rm.findBestSeats( ), InputScaler::tileMaze );
+
+		add( S, Day17.class, 17, 1, "IntCodeMachine.run", false, INPUTS, IntCodeMachine::new, (icm, raw) -> icm.run( ), null );
+		add( S, Day17.class, 17, 2, "Day17.part2", false, new String[] { "example2.txt", "input.txt" }, in -> in, (in, raw) -> Day17.part2( in ), null );
+
+		add( S, Day18.class, 18, 1, "Day18.part1", false, INPUTS, in -> in, (in, raw) -> Day18.part1( in, memorySize( in ), memorySize( in ) <= 7 ? 12 : 1024 ), null );
+		add( S, Day18.class, 18, 2, "Day18.part2", false, INPUTS, in -> in, (in, raw) -> Day18.part2( in, memorySize( in ) ), null );
+
+		add( S, Day19.class, 19, 1, "Day19.solve", false, INPUTS, in -> in, (in, raw) -> Day19.solve( in )[0], (in, f) -> InputScaler.repeatBody( in, 2, f ) );
+		add( S, Day19.class, 19, 2, "Day19.solve", false, INPUTS, in -> in, (in, raw) -> Day19.solve( in )[1], (in, f) -> InputScaler.repeatBody( in, 2, f ) );
+
+		add( S, Day20.class, 20, 1, "CPUMaze.findCheatCount", false, INPUTS, CPUMaze::new, (cm, raw) -> cm.findCheatCount( 2, 100 ), InputScaler::raceTrack );
+		add( S, Day20.class, 20, 2, "CPUMaze.findCheatCount", false, INPUTS, CPUMaze::new, (cm, raw) -> cm.findCheatCount( 20, 100 ), InputScaler::raceTrack );
+		addParallel( S, Day20.class, 20, 2, "CPUMaze.findCheatCount parallel", false, INPUTS, CPUMaze::new, (cm, raw) -> cm.findCheatCount( 20, 100, ForkJoinPool.commonPool( ) ), InputScaler::raceTrack );
+
+		add( S, Day21.class, 21, 1, "RobotController.optimiseEncoding", false, INPUTS, in -> new RobotController( 3 ), Solvers::complexity, InputScaler::repeatLines );
+		add( S, Day21.class, 21, 2, "RobotController.optimiseEncoding", false, INPUTS, in -> new RobotController( 26 ), Solvers::complexity, InputScaler::repeatLines );
+		addParallel( S, Day21.class, 21, 2, "RobotController.encodeAll parallel", false, INPUTS, in -> new RobotController( 26 ), (rc, raw) -> rc.encodeAll( raw, ForkJoinPool.commonPool( ) ).getComplexity( ), InputScaler::repeatLines );
+
+		add( S, Day22.class, 22, 1, "MonkeyMarket.sumSecrets", false, INPUTS, MonkeyMarket::new, (mm, raw) -> mm.sumSecrets( 2000 ), InputScaler::repeatLines );
+		add( S, Day22.class, 22, 2, "MonkeyMarket.buyMostBananas", false, new String[] { "example2.txt", "input.txt" }, MonkeyMarket::new, (mm, raw) -> mm.buyMostBananas( 2000 ), InputScaler::repeatLines );
+
+		add( S, Day23.class, 23, 1, "LANParty.countConnectedTriplets", false, INPUTS, LANParty::new, (lp, raw) -> lp.countConnectedTriplets( "t" ), InputScaler::copyNetwork );
+		addParallel( S, Day23.class, 23, 1, "LANParty.countConnectedTriplets parallel", false, INPUTS, LANParty::new, (lp, raw) -> lp.countConnectedTriplets( "t", ForkJoinPool.commonPool( ) ), InputScaler::copyNetwork );
+		addParallel( S, Day23.class, 23, 1, "LANParty.countConnectedCliques parallel", false, INPUTS, LANParty::new, (lp, raw) -> lp.countConnectedCliques( 3, "t", ForkJoinPool.commonPool( ) ), InputScaler::copyNetwork );
+		add( S, Day23.class, 23, 2, "LANParty.getPassword", false, INPUTS, LANParty::new, (lp, raw) -> lp.getPassword( ), InputScaler::copyNetwork );
+
+		return S;
+	}
+
+	/**
+	 * Creates a new solver case and adds it to the list
+	 * 
+	 * @param S The list to add the case to
+	 * @param dayclass The DayNN class of the solver
+	 * @param day The day number
+	 * @param part The puzzle part
+	 * @param name The descriptive name of the solver entry point
+	 * @param groups True to read the inputs as line groups, false for lines
+	 * @param inputs The input resource files to run the solver on
+	 * @param parser The parsing stage
+	 * @param solver The solving stage
+	 * @param scaler The input scaling function, null if not scalable
+	 */
+	private static <T> void add( final List<SolverCase<?>> S, final Class<?> dayclass, final int day, final int part, final String name, final boolean groups, final String[] inputs, final Function<List<String>, T> parser, final BiFunction<T, List<String>, Object> solver, final BiFunction<List<String>, Integer, List<String>> scaler ) {
+		S.add( new SolverCase<T>( dayclass, day, part, name, groups, inputs, parser, solver, scaler ) );
+	}
+
+	/**
+	 * Creates a new solver case for a solver that runs its work on a fork-join
+	 * pool and adds it to the list
+	 * 
+	 * @param S The list to add the case to
+	 * @param dayclass The DayNN class of the solver
+	 * @param day The day number
+	 * @param part The puzzle part
+	 * @param name The descriptive name of the solver entry point
+	 * @param groups True to read the inputs as line groups, false for lines
+	 * @param inputs The input resource files to run the solver on
+	 * @param parser The parsing stage
+	 * @param solver The solving stage
+	 * @param scaler The input scaling function, null if not scalable
+	 */
+	private static <T> void addParallel( final List<SolverCase<?>> S, final Class<?> dayclass, final int day, final int part, final String name, final boolean groups, final String[] inputs, final Function<List<String>, T> parser, final BiFunction<T, List<String>, Object> solver, final BiFunction<List<String>, Integer, List<String>> scaler ) {
+		S.add( new SolverCase<T>( dayclass, day, part, name, groups, true, inputs, parser, solver, scaler ) );
+	}
+
+	/**
+	 * Reconstructs all claw machines from their configurations
+	 * 
+	 * @param input The list of claw machine configurations
+	 * @param biggoal True to move the goal of every machine
+	 * @return The list of claw machines
+	 */
+	private static List<ClawMachine> clawMachines( final List<String> input, final boolean biggoal ) {
+		final List<ClawMachine> machines = new ArrayList<>( input.size( ) );
+		for( final String s : input ) machines.add( ClawMachine.fromString( s, biggoal ) );
+		return machines;
+	}
+
+	/**
+	 * Creates a robot grid that holds all robots in the input. The grid size is
+	 * derived from the maximal robot starting position
+	 * 
+	 * @param input The list of robot descriptions
+	 * @return The robot grid
+	 */
+	private static RobotGrid robotGrid( final List<String> input ) {
+		int width = 0, height = 0;
+		for( final String s : input ) {
+			final String[] p = s.substring( 2, s.indexOf( ' ' ) ).split( "," );
+			width = Math.max( width, Integer.parseInt( p[0] ) + 1 );
+			height = Math.max( height, Integer.parseInt( p[1] ) + 1 );
+		}
+		final RobotGrid rg = new RobotGrid( width, height );
+		rg.addRobots( input );
+		return rg;
+	}
+
+	/**
+	 * Determines the memory size of the Pushdown Automaton from the largest
+	 * corrupted memory coordinate
+	 * 
+	 * @param input The list of corrupted memory coordinates
+	 * @return The memory size
+	 */
+	private static int memorySize( final List<String> input ) {
+		int size = 0;
+		for( final String s : input )
+			for( final String c : s.split( "," ) ) size = Math.max( size, Integer.parseInt( c ) + 1 );
+		return size;
+	}
+
+	/**
+	 * Computes the sum of code complexities using the robot controller
+	 * 
+	 * @param rc The robot controller to encode the codes with
+	 * @param codes The codes to encode
+	 * @return The sum of numeric code values times their encoding length
+	 */
+	private static long complexity( final RobotController rc, final List<String> codes ) {
+		long result = 0;
+		for( final String s : codes )
+			result += Long.parseLong( s.substring( 0, s.indexOf( 'A' ) ) ) * rc.optimiseEncoding( s );
+		return result;
+	}
+}